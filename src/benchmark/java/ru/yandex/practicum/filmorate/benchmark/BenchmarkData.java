@@ -0,0 +1,197 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.util.FileSystemUtils;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.user.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public final class BenchmarkData {
+    public static final int CHUNK_SIZE = 1000;
+    public static final int LIKES_CHUNK_SIZE = 10_000;
+
+    private static final double POWER_LAW_ALPHA = 2.5;
+    private static final int MAX_DEGREE = 10_000;
+
+    private BenchmarkData() {
+    }
+
+    public static ConfigurableApplicationContext startApplication() {
+        return startApplication(WebApplicationType.NONE, List.of("--filmorate.cache.enabled=false"));
+    }
+
+    public static ConfigurableApplicationContext startApplication(WebApplicationType webApplicationType,
+                                                                  List<String> args) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--spring.datasource.url=jdbc:h2:file:" + createDatabaseDirectory().resolve("filmorate"));
+        arguments.add("--spring.sql.init.data-locations=classpath:data.sql");
+        arguments.add("--logging.level.root=WARN");
+        arguments.addAll(args);
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(webApplicationType)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    // file-backed like the application database, the files are removed when the benchmark JVM exits
+    private static Path createDatabaseDirectory() {
+        try {
+            Path directory = Files.createTempDirectory("filmorate-benchmark");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    FileSystemUtils.deleteRecursively(directory);
+                } catch (IOException e) {
+                    // the temporary directory is left to the system
+                }
+            }));
+            return directory.toAbsolutePath();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't create a benchmark database directory", e);
+        }
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int userCount, int filmCount,
+                            int averageFriends, int averageLikes) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        for (int first = 0; first < userCount; first += CHUNK_SIZE) {
+            userRepository.createAll(users(first + 1, Math.min(CHUNK_SIZE, userCount - first)));
+        }
+        FilmRepository filmRepository = context.getBean(FilmRepository.class);
+        for (int first = 0; first < filmCount; first += CHUNK_SIZE) {
+            filmRepository.createAll(films(first + 1, Math.min(CHUNK_SIZE, filmCount - first)));
+        }
+        if (averageFriends > 0) {
+            insertFriends(context.getBean(NamedParameterJdbcOperations.class),
+                    powerLawAdjacency(userCount, userCount, averageFriends, 42));
+            context.getBean(JdbcUserRepository.class).loadFriendGraph();
+        }
+        if (averageLikes > 0) {
+            List<FilmLike> likes = likes(powerLawAdjacency(userCount, filmCount, averageLikes, 43));
+            for (int first = 0; first < likes.size(); first += LIKES_CHUNK_SIZE) {
+                filmRepository.addLikes(likes.subList(first, Math.min(first + LIKES_CHUNK_SIZE, likes.size())));
+            }
+        }
+    }
+
+    public static void insertFriends(NamedParameterJdbcOperations jdbc, long[][] friends) {
+        String sqlQuery = "INSERT INTO \"user_user_friend\" (\"user_id\", \"friend_id\") VALUES (:user_id, :friend_id);";
+
+        List<SqlParameterSource> batchParams = new ArrayList<>();
+        for (int user = 0; user < friends.length; user++) {
+            for (long friendId : friends[user]) {
+                batchParams.add(new MapSqlParameterSource()
+                        .addValue("user_id", user + 1L)
+                        .addValue("friend_id", friendId));
+            }
+        }
+        jdbc.batchUpdate(sqlQuery, batchParams.toArray(SqlParameterSource[]::new));
+    }
+
+    public static Film film(long index) {
+        return Film.builder()
+                .name("film" + index)
+                .description("Benchmark film " + index)
+                .releaseDate(LocalDate.of(2000, 1, 1).plusDays(index % 9000))
+                .duration(90 + (int) (index % 60))
+                .mpa(new Mpa(1 + (int) (index % 5), null))
+                .build();
+    }
+
+    public static User user(long index) {
+        return User.builder()
+                .email("user" + index + "@example.com")
+                .login("user" + index)
+                .name("User " + index)
+                .birthday(LocalDate.of(1980, 1, 1).plusDays(index % 9000))
+                .build();
+    }
+
+    public static List<Film> films(long firstIndex, int count) {
+        List<Film> films = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            films.add(film(firstIndex + i));
+        }
+        return films;
+    }
+
+    public static List<User> users(long firstIndex, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(user(firstIndex + i));
+        }
+        return users;
+    }
+
+    public static long[][] powerLawAdjacency(int sourceCount, int targetCount, int averageDegree, long seed) {
+        Random random = new Random(seed);
+        double minDegree = Math.max(1.0, averageDegree * (POWER_LAW_ALPHA - 2) / (POWER_LAW_ALPHA - 1));
+        int maxDegree = Math.min(MAX_DEGREE, targetCount - 1);
+
+        long[][] adjacency = new long[sourceCount][];
+        for (int source = 0; source < sourceCount; source++) {
+            int degree = (int) Math.min(maxDegree,
+                    minDegree / Math.pow(1 - random.nextDouble(), 1 / (POWER_LAW_ALPHA - 1)));
+            long[] targets = new long[degree];
+            for (int i = 0; i < degree; i++) {
+                targets[i] = 1 + (long) (targetCount * Math.pow(random.nextDouble(), 2));
+            }
+            long selfId = source + 1;
+            adjacency[source] = Arrays.stream(targets)
+                    .filter(target -> target != selfId)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+        }
+        return adjacency;
+    }
+
+    public static long[][] invert(long[][] adjacency, int targetCount) {
+        int[] counts = new int[targetCount];
+        for (long[] targets : adjacency) {
+            for (long target : targets) {
+                counts[(int) target - 1]++;
+            }
+        }
+        long[][] inverted = new long[targetCount][];
+        for (int target = 0; target < targetCount; target++) {
+            inverted[target] = new long[counts[target]];
+        }
+        Arrays.fill(counts, 0);
+        for (int source = 0; source < adjacency.length; source++) {
+            for (long target : adjacency[source]) {
+                int index = (int) target - 1;
+                inverted[index][counts[index]++] = source + 1;
+            }
+        }
+        return inverted;
+    }
+
+    public static List<FilmLike> likes(long[][] userFilms) {
+        List<FilmLike> likes = new ArrayList<>();
+        for (int user = 0; user < userFilms.length; user++) {
+            for (long filmId : userFilms[user]) {
+                likes.add(new FilmLike(filmId, user + 1L));
+            }
+        }
+        return likes;
+    }
+}
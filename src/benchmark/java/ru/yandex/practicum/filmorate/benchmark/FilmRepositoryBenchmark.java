@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.InMemoryFilmRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmRepositoryBenchmark {
+    private static final int USER_COUNT = 1000;
+    private static final int AVERAGE_LIKES_PER_USER = 20;
+
+    @Param({"inMemory", "jdbc"})
+    private String repository;
+
+    @Param({"1000", "10000"})
+    private int filmCount;
+
+    private ConfigurableApplicationContext context;
+    private FilmRepository filmRepository;
+    private final AtomicLong nextFilmIndex = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("jdbc".equals(repository)) {
+            context = BenchmarkData.startApplication();
+            filmRepository = context.getBean(FilmRepository.class);
+            context.getBean(UserRepository.class).createAll(BenchmarkData.users(1, USER_COUNT));
+        } else {
+            filmRepository = new InMemoryFilmRepository();
+        }
+
+        for (int first = 0; first < filmCount; first += BenchmarkData.CHUNK_SIZE) {
+            filmRepository.createAll(BenchmarkData.films(first + 1, Math.min(BenchmarkData.CHUNK_SIZE,
+                    filmCount - first)));
+        }
+        List<FilmLike> likes = BenchmarkData.likes(BenchmarkData.powerLawAdjacency(USER_COUNT, filmCount,
+                AVERAGE_LIKES_PER_USER, 42));
+        for (int first = 0; first < likes.size(); first += BenchmarkData.LIKES_CHUNK_SIZE) {
+            filmRepository.addLikes(likes.subList(first, Math.min(first + BenchmarkData.LIKES_CHUNK_SIZE, likes.size())));
+        }
+        nextFilmIndex.set(filmCount + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Film create() {
+        return filmRepository.create(BenchmarkData.film(nextFilmIndex.getAndIncrement()));
+    }
+
+    @Benchmark
+    public Optional<Film> get() {
+        return filmRepository.get(1 + (long) ThreadLocalRandom.current().nextInt(filmCount));
+    }
+
+    @Benchmark
+    public Collection<Film> getAll() {
+        return filmRepository.getAll();
+    }
+
+    @Benchmark
+    public boolean addLike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return filmRepository.addLike(1 + (long) random.nextInt(filmCount), 1 + (long) random.nextInt(USER_COUNT));
+    }
+
+    @Benchmark
+    public Collection<Film> getMostPopular() {
+        return filmRepository.getMostPopular(10);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.repository.film.FilmFilterIndex;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilterBenchmark {
+    private static final int GENRE_COUNT = 6;
+    private static final int MPA_COUNT = 5;
+    private static final int FIRST_YEAR = 1900;
+    private static final int YEAR_COUNT = 125;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"100000", "1000000"})
+    private int filmCount;
+
+    private FilmFilterIndex filterIndex;
+    private int[] likes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        filterIndex = new FilmFilterIndex();
+        likes = new int[filmCount + 1];
+        FilmFilterIndex.Loader loader = filterIndex.loader();
+        for (int film = 1; film <= filmCount; film++) {
+            int year = FIRST_YEAR + random.nextInt(YEAR_COUNT);
+            int mpa = 1 + random.nextInt(MPA_COUNT);
+            loader.add(film, year, mpa, 1 + random.nextInt(GENRE_COUNT));
+            if (random.nextBoolean()) {
+                loader.add(film, year, mpa, 1 + random.nextInt(GENRE_COUNT));
+            }
+            likes[film] = (int) (1000 * Math.pow(random.nextDouble(), 8));
+        }
+        loader.complete();
+    }
+
+    @Benchmark
+    public long[] findPageByGenreAndYears() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int yearFrom = FIRST_YEAR + random.nextInt(YEAR_COUNT - 10);
+        return filterIndex.find(FilmFilter.builder()
+                .genreIds(Set.of(1 + random.nextInt(GENRE_COUNT)))
+                .yearFrom(yearFrom)
+                .yearTo(yearFrom + 10)
+                .build(), random.nextInt(filmCount), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public long[] findPageBySelectiveFilter() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int year = FIRST_YEAR + random.nextInt(YEAR_COUNT);
+        return filterIndex.find(FilmFilter.builder()
+                .genreIds(Set.of(1 + random.nextInt(GENRE_COUNT)))
+                .mpaIds(Set.of(1 + random.nextInt(MPA_COUNT)))
+                .yearFrom(year)
+                .yearTo(year)
+                .build(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public long[] findMostPopularByGenresAndMpa() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int genre = random.nextInt(GENRE_COUNT);
+        return filterIndex.findTop(FilmFilter.builder()
+                .genreIds(Set.of(1 + genre, 1 + (genre + 1) % GENRE_COUNT))
+                .mpaIds(Set.of(1 + random.nextInt(MPA_COUNT)))
+                .build(), filmId -> likes[(int) filmId], 10);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.repository.user.FriendGraphIndex;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FriendGraphBenchmark {
+    private static final int HOT_USER_COUNT = 10_000;
+
+    @Param({"100000", "1000000"})
+    private int userCount;
+
+    @Param({"20"})
+    private int averageFriends;
+
+    private FriendGraphIndex friendGraph;
+    private long hubUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long[][] friends = BenchmarkData.powerLawAdjacency(userCount, userCount, averageFriends, 42);
+        long[][] followers = BenchmarkData.invert(friends, userCount);
+
+        friendGraph = new FriendGraphIndex();
+        for (int user = 0; user < userCount; user++) {
+            friendGraph.putFriends(user + 1L, friends[user]);
+            friendGraph.putFollowers(user + 1L, followers[user]);
+            if (friends[user].length > friendGraph.getFriendCount(hubUserId)) {
+                hubUserId = user + 1L;
+            }
+        }
+    }
+
+    @Benchmark
+    public long[] getMutualFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return friendGraph.getMutualFriends(1 + random.nextInt(userCount), 1 + random.nextInt(userCount));
+    }
+
+    @Benchmark
+    public long[] getMutualFriendsWithHub() {
+        return friendGraph.getMutualFriends(hubUserId, 1 + ThreadLocalRandom.current().nextInt(userCount));
+    }
+
+    @Benchmark
+    public long[] getFriendSuggestions() {
+        return friendGraph.getFriendSuggestions(1 + ThreadLocalRandom.current().nextInt(userCount), 10);
+    }
+
+    @Benchmark
+    public long[] getFriendSuggestionsHot() {
+        return friendGraph.getFriendSuggestions(1 + ThreadLocalRandom.current().nextInt(HOT_USER_COUNT), 10);
+    }
+}
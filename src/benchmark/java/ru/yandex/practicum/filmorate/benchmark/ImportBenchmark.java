@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.repository.user.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+    // the rows counter is the score to read: stored rows per second
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    @Param({"1000", "10000"})
+    private int count;
+
+    private ConfigurableApplicationContext context;
+    private NamedParameterJdbcOperations jdbc;
+    private JdbcFilmRepository filmRepository;
+    private JdbcUserRepository userRepository;
+    private FilmService filmService;
+    private UserService userService;
+    private List<Film> films;
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startApplication();
+        jdbc = context.getBean(NamedParameterJdbcOperations.class);
+        filmRepository = context.getBean(JdbcFilmRepository.class);
+        userRepository = context.getBean(JdbcUserRepository.class);
+        filmService = context.getBean(FilmService.class);
+        userService = context.getBean(UserService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareEntities() {
+        films = BenchmarkData.films(1, count);
+        users = BenchmarkData.users(1, count);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteEntities() {
+        jdbc.update("DELETE FROM \"film\";", new MapSqlParameterSource());
+        jdbc.update("DELETE FROM \"user\";", new MapSqlParameterSource());
+        // the rows are deleted in bulk, so the in-memory indexes are rebuilt from the emptied tables
+        filmRepository.loadSearchIndex();
+        filmRepository.loadFilterIndex();
+        filmRepository.loadLikeMatrix();
+        userRepository.loadFriendGraph();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void createFilms(Rows rows) {
+        films.forEach(filmService::create);
+        rows.rows += films.size();
+    }
+
+    @Benchmark
+    public ImportResult importFilms(Rows rows) {
+        ImportResult result = filmService.importAll(films.iterator());
+        rows.rows += result.getImported();
+        return result;
+    }
+
+    @Benchmark
+    public void createUsers(Rows rows) {
+        users.forEach(userService::create);
+        rows.rows += users.size();
+    }
+
+    @Benchmark
+    public ImportResult importUsers(Rows rows) {
+        ImportResult result = userService.importAll(users.iterator());
+        rows.rows += result.getImported();
+        return result;
+    }
+}
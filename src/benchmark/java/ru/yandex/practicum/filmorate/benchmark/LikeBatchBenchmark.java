@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeBatchResult;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeBatchBenchmark {
+    private static final int FILM_COUNT = 1000;
+    private static final int USER_COUNT = 1000;
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private FilmService filmService;
+    private FilmRepository filmRepository;
+    private List<FilmLike> likes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startApplication();
+        filmService = context.getBean(FilmService.class);
+        filmRepository = context.getBean(FilmRepository.class);
+        context.getBean(UserRepository.class).createAll(BenchmarkData.users(1, USER_COUNT));
+        filmRepository.createAll(BenchmarkData.films(1, FILM_COUNT));
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareLikes() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<FilmLike> distinctLikes = new HashSet<>();
+        while (distinctLikes.size() < batchSize) {
+            distinctLikes.add(new FilmLike(1 + (long) random.nextInt(FILM_COUNT), 1 + (long) random.nextInt(USER_COUNT)));
+        }
+        likes = new ArrayList<>(distinctLikes);
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeLikes() {
+        filmRepository.removeLikes(likes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void singleLikes() {
+        for (FilmLike like : likes) {
+            filmService.addLike(like.getFilmId(), like.getUserId());
+        }
+    }
+
+    @Benchmark
+    public FilmLikeBatchResult batchLikes() {
+        return filmService.addLikes(likes);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.repository.film.LikeMatrixIndex;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecommendationBenchmark {
+    @Param({"100000", "1000000"})
+    private int userCount;
+
+    @Param({"10000"})
+    private int filmCount;
+
+    @Param({"20"})
+    private int averageLikes;
+
+    private LikeMatrixIndex likeMatrix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long[][] userFilms = BenchmarkData.powerLawAdjacency(userCount, filmCount, averageLikes, 42);
+        long[][] filmUsers = BenchmarkData.invert(userFilms, filmCount);
+
+        likeMatrix = new LikeMatrixIndex();
+        for (int user = 0; user < userCount; user++) {
+            likeMatrix.putUserFilms(user + 1L, userFilms[user]);
+        }
+        for (int film = 0; film < filmCount; film++) {
+            likeMatrix.putFilmUsers(film + 1L, filmUsers[film]);
+        }
+    }
+
+    @Benchmark
+    public long[] getRecommendations() {
+        return likeMatrix.getRecommendations(1 + ThreadLocalRandom.current().nextInt(userCount), 10);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.yandex.practicum.filmorate.controller.JsonResponseCache;
+import ru.yandex.practicum.filmorate.service.DataVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.GenreService;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseCacheBenchmark {
+    private static final int USER_COUNT = 1000;
+    private static final int FILM_COUNT = 1000;
+
+    @Param({"10", "100"})
+    private int count;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private FilmService filmService;
+    private GenreService genreService;
+    private DataVersions dataVersions;
+    private JsonResponseCache responseCache;
+    private ServletWebRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startApplication();
+        BenchmarkData.seed(context, USER_COUNT, FILM_COUNT, 0, 20);
+        objectMapper = context.getBean(ObjectMapper.class);
+        filmService = context.getBean(FilmService.class);
+        genreService = context.getBean(GenreService.class);
+        dataVersions = context.getBean(DataVersions.class);
+        responseCache = context.getBean(JsonResponseCache.class);
+        request = new ServletWebRequest(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] popularJackson() throws IOException {
+        return objectMapper.writeValueAsBytes(filmService.getMostPopular(count));
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> popularCached() throws IOException {
+        return responseCache.get("popular:" + count, dataVersions.getPopularFilmsTag(), request,
+                () -> filmService.getMostPopular(count));
+    }
+
+    @Benchmark
+    public byte[] genresJackson() throws IOException {
+        return objectMapper.writeValueAsBytes(genreService.getAll());
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> genresCached() throws IOException {
+        return responseCache.get("genres", dataVersions.getReferenceDataTag(), request, genreService::getAll);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+    private static final String[] SYLLABLES = {"ка", "ро", "ми", "ла", "ден", "бор", "ma", "tri", "ko", "sen",
+            "lo", "ver", "na", "gal", "to", "rin"};
+    private static final int NAME_WORDS = 3;
+    private static final int DESCRIPTION_WORDS = 15;
+
+    @Param({"100000", "1000000"})
+    private int filmCount;
+
+    @Param({"20000"})
+    private int vocabularySize;
+
+    private String[] vocabulary;
+    private FilmSearchIndex searchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        vocabulary = new String[vocabularySize];
+        for (int i = 0; i < vocabularySize; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = word.toString();
+        }
+
+        searchIndex = new FilmSearchIndex();
+        FilmSearchIndex.Loader loader = searchIndex.loader();
+        for (int film = 0; film < filmCount; film++) {
+            loader.add(film + 1L, text(random, NAME_WORDS), text(random, DESCRIPTION_WORDS));
+        }
+        loader.complete();
+    }
+
+    @Benchmark
+    public long[] searchWord() {
+        return searchIndex.search(word(ThreadLocalRandom.current()), 10);
+    }
+
+    @Benchmark
+    public long[] searchPrefix() {
+        String word = word(ThreadLocalRandom.current());
+        return searchIndex.search(word.substring(0, Math.min(word.length(), 5)), 10);
+    }
+
+    @Benchmark
+    public long[] searchTwoWords() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return searchIndex.search(word(random) + " " + word(random), 10);
+    }
+
+    private String text(Random random, int words) {
+        StringJoiner text = new StringJoiner(" ");
+        for (int i = 0; i < words; i++) {
+            text.add(word(random));
+        }
+        return text.toString();
+    }
+
+    private String word(Random random) {
+        return vocabulary[(int) (vocabularySize * Math.pow(random.nextDouble(), 2))];
+    }
+}
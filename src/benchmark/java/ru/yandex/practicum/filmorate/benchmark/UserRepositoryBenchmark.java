@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+import ru.yandex.practicum.filmorate.repository.user.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRepositoryBenchmark {
+    private static final int AVERAGE_FRIENDS = 20;
+
+    @Param({"inMemory", "jdbc"})
+    private String repository;
+
+    @Param({"1000", "10000"})
+    private int userCount;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private final AtomicLong nextUserIndex = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("jdbc".equals(repository)) {
+            context = BenchmarkData.startApplication();
+            userRepository = context.getBean(UserRepository.class);
+        } else {
+            userRepository = new InMemoryUserRepository();
+        }
+
+        for (int first = 0; first < userCount; first += BenchmarkData.CHUNK_SIZE) {
+            userRepository.createAll(BenchmarkData.users(first + 1, Math.min(BenchmarkData.CHUNK_SIZE,
+                    userCount - first)));
+        }
+        long[][] friends = BenchmarkData.powerLawAdjacency(userCount, userCount, AVERAGE_FRIENDS, 42);
+        if (context != null) {
+            BenchmarkData.insertFriends(context.getBean(NamedParameterJdbcOperations.class), friends);
+            context.getBean(JdbcUserRepository.class).loadFriendGraph();
+        } else {
+            for (int user = 0; user < friends.length; user++) {
+                for (long friendId : friends[user]) {
+                    userRepository.addFriend(user + 1L, friendId);
+                }
+            }
+        }
+        nextUserIndex.set(userCount + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public User create() {
+        return userRepository.create(BenchmarkData.user(nextUserIndex.getAndIncrement()));
+    }
+
+    @Benchmark
+    public Optional<User> get() {
+        return userRepository.get(1 + (long) ThreadLocalRandom.current().nextInt(userCount));
+    }
+
+    @Benchmark
+    public Collection<User> getAll() {
+        return userRepository.getAll();
+    }
+
+    @Benchmark
+    public Optional<Collection<User>> getFriends() {
+        return userRepository.getFriends(1 + (long) ThreadLocalRandom.current().nextInt(userCount));
+    }
+
+    @Benchmark
+    public Collection<User> getMutualFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userRepository.getMutualFriends(1 + (long) random.nextInt(userCount),
+                1 + (long) random.nextInt(userCount));
+    }
+}
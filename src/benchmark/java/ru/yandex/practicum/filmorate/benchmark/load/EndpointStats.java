@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.benchmark.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EndpointStats {
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Histogram latencies;
+    private final AtomicLong errors = new AtomicLong();
+
+    public EndpointStats(long timeoutMillis) {
+        latencies = new ConcurrentHistogram(TimeUnit.MILLISECONDS.toNanos(timeoutMillis) * 2, SIGNIFICANT_DIGITS);
+        latencies.setAutoResize(true);
+    }
+
+    public void record(long latencyNanos, boolean failed) {
+        latencies.recordValue(latencyNanos);
+        if (failed) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    public long getCount() {
+        return latencies.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+}
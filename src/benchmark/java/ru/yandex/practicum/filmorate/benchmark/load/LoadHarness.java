@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.benchmark.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.benchmark.BenchmarkData;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadHarness {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double SUSTAINED_RATE_RATIO = 0.95;
+    private static final String TOTAL = "total";
+
+    private final LoadScenario scenario;
+    private final Path outputDirectory;
+    private final HttpClient client;
+    private final Random random = new Random(42);
+    private String baseUri;
+
+    public LoadHarness(LoadScenario scenario, Path outputDirectory) {
+        this.scenario = scenario;
+        this.outputDirectory = outputDirectory;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(scenario.getTimeoutMillis()))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: LoadHarness <scenario.json> [output directory]");
+            System.exit(2);
+        }
+        Path scenarioFile = Path.of(args[0]);
+        LoadScenario scenario = new ObjectMapper().readValue(scenarioFile.toFile(), LoadScenario.class);
+        if (scenario.getName() == null) {
+            scenario.setName(scenarioFile.getFileName().toString().replaceFirst("\\.json$", ""));
+        }
+        Path outputDirectory = Path.of(args.length > 1 ? args[1] : "target/load");
+
+        new LoadHarness(scenario, outputDirectory).run();
+        System.exit(0);
+    }
+
+    public void run() throws IOException {
+        List<String> args = new ArrayList<>();
+        args.add("--server.address=127.0.0.1");
+        args.add("--server.port=0");
+        scenario.getProperties().forEach((key, value) -> args.add("--" + key + "=" + value));
+
+        try (ConfigurableApplicationContext context = BenchmarkData.startApplication(WebApplicationType.SERVLET,
+                args)) {
+            baseUri = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            BenchmarkData.seed(context, scenario.getUsers(), scenario.getFilms(), scenario.getAverageFriends(),
+                    scenario.getAverageLikes());
+            Files.createDirectories(outputDirectory);
+
+            Integer sustainedRate = null;
+            for (int rate : scenario.getRates()) {
+                drive(rate, TimeUnit.SECONDS.toNanos(scenario.getWarmupSeconds()));
+                long started = System.nanoTime();
+                Map<String, EndpointStats> stats = drive(rate, TimeUnit.SECONDS.toNanos(scenario.getDurationSeconds()));
+                double achievedRate = stats.get(TOTAL).getCount() * 1e9 / (System.nanoTime() - started);
+                report(rate, achievedRate, stats);
+                if (achievedRate >= rate * SUSTAINED_RATE_RATIO && stats.get(TOTAL).getErrors() == 0) {
+                    sustainedRate = rate;
+                }
+            }
+            System.out.printf("%nScenario %s: highest sustained rate %s req/s%n", scenario.getName(),
+                    sustainedRate == null ? "none" : sustainedRate);
+        }
+    }
+
+    private Map<String, EndpointStats> drive(int rate, long durationNanos) {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (LoadRequest request : scenario.getRequests()) {
+            stats.put(request.getName(), new EndpointStats(scenario.getTimeoutMillis()));
+        }
+        stats.put(TOTAL, new EndpointStats(scenario.getTimeoutMillis()));
+        int totalWeight = scenario.getRequests().stream()
+                .mapToInt(LoadRequest::getWeight)
+                .sum();
+
+        List<CompletableFuture<Void>> responses = new ArrayList<>();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (long i = 0; i * intervalNanos < durationNanos; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            LoadRequest request = pick(totalWeight);
+            EndpointStats endpointStats = stats.get(request.getName());
+            responses.add(client.sendAsync(toHttpRequest(request), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        long latency = System.nanoTime() - intendedStart;
+                        boolean failed = error != null || response.statusCode() >= 400;
+                        endpointStats.record(latency, failed);
+                        stats.get(TOTAL).record(latency, failed);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+        return stats;
+    }
+
+    private LoadRequest pick(int totalWeight) {
+        int point = random.nextInt(totalWeight);
+        for (LoadRequest request : scenario.getRequests()) {
+            point -= request.getWeight();
+            if (point < 0) {
+                return request;
+            }
+        }
+        throw new IllegalStateException("Request weights must be positive");
+    }
+
+    private HttpRequest toHttpRequest(LoadRequest request) {
+        HttpRequest.BodyPublisher body = request.getBody() == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(substitute(request.getBody()));
+        return HttpRequest.newBuilder(URI.create(baseUri + substitute(request.getPath())))
+                .timeout(Duration.ofMillis(scenario.getTimeoutMillis()))
+                .header("Content-Type", "application/json")
+                .method(request.getMethod(), body)
+                .build();
+    }
+
+    private String substitute(String template) {
+        return template
+                .replace("{userId}", String.valueOf(1 + random.nextInt(scenario.getUsers())))
+                .replace("{otherUserId}", String.valueOf(1 + random.nextInt(scenario.getUsers())))
+                .replace("{filmId}", String.valueOf(1 + random.nextInt(scenario.getFilms())));
+    }
+
+    private void report(int rate, double achievedRate, Map<String, EndpointStats> stats) throws IOException {
+        System.out.printf("%nScenario %s at %d req/s (achieved %.1f req/s), latency in ms:%n",
+                scenario.getName(), rate, achievedRate);
+        System.out.printf("%-20s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "count", "errors", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            Histogram latencies = entry.getValue().getLatencies();
+            System.out.printf("%-20s %10d %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(),
+                    entry.getValue().getCount(),
+                    entry.getValue().getErrors(),
+                    latencies.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    latencies.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                    latencies.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    latencies.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                    latencies.getMaxValue() / NANOS_PER_MILLI);
+
+            Path distribution = outputDirectory.resolve(scenario.getName() + "-" + rate + "-" + entry.getKey()
+                    + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(distribution))) {
+                latencies.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.benchmark.load;
+
+import lombok.Data;
+
+@Data
+public class LoadRequest {
+    private String name;
+    private String method = "GET";
+    private String path;
+    private String body;
+    private int weight = 1;
+}
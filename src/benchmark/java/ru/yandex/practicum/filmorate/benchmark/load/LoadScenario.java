@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.benchmark.load;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class LoadScenario {
+    private String name;
+    private int users = 1000;
+    private int films = 1000;
+    private int averageFriends = 20;
+    private int averageLikes = 20;
+    private List<Integer> rates = new ArrayList<>();
+    private int warmupSeconds = 10;
+    private int durationSeconds = 30;
+    private int timeoutMillis = 5000;
+    private Map<String, String> properties = new LinkedHashMap<>();
+    private List<LoadRequest> requests = new ArrayList<>();
+}
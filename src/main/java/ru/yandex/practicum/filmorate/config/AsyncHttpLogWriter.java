@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// only the appender call leaves the request thread: Logbook formats the exchange before it reaches the writer,
+// and the request and response it formats are recycled by Tomcat once the exchange ends, so handing them
+// to another thread would mean copying them, which costs about as much as formatting. The formatting cost is
+// kept down by sampling and by the body size limit instead
+@Slf4j
+public class AsyncHttpLogWriter implements HttpLogWriter, AutoCloseable {
+    public static final String DROPPED = "filmorate.http.log.dropped";
+
+    private static final Logger EXCHANGE_LOG = LoggerFactory.getLogger(Logbook.class);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final BlockingQueue<String> queue;
+    private final Counter dropped;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public AsyncHttpLogWriter(int capacity, MeterRegistry meterRegistry) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dropped = Counter.builder(DROPPED)
+                .description("HTTP exchange log entries dropped because the log queue was full")
+                .register(meterRegistry);
+        this.worker = new Thread(this::drain, "http-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public boolean isActive() {
+        return EXCHANGE_LOG.isTraceEnabled();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        enqueue(request);
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        enqueue(response);
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public double getDropped() {
+        return dropped.count();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.count() > 0) {
+            log.warn("{} HTTP exchange log entries were dropped because the log queue was full", (long) dropped.count());
+        }
+    }
+
+    private void enqueue(String entry) {
+        if (closed || !queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                String entry = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (entry != null) {
+                    EXCHANGE_LOG.trace(entry);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.controller.JsonFragmentCache;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+@Slf4j
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(EntityCacheProperties.class)
+@ConditionalOnProperty(name = "filmorate.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheConfig {
+    public static final String FILMS = "films";
+    public static final String USERS = "users";
+    public static final String FILM_JSON = "filmJson";
+    public static final String USER_JSON = "userJson";
+
+    private static final Map<String, UnaryOperator<Object>> COPIERS = Map.of(
+            FILMS, film -> ((Film) film).copy(),
+            USERS, user -> ((User) user).copy());
+
+    @Bean
+    public CacheManager cacheManager(EntityCacheProperties properties) {
+        List<Cache> caches = new ArrayList<>();
+        properties.getEntities().forEach((name, entity) -> {
+            if (entity.isEnabled()) {
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = Caffeine.from(entity.getSpec())
+                        .recordStats()
+                        .build();
+                caches.add(COPIERS.containsKey(name)
+                        ? new CopyingCache(name, cache, COPIERS.get(name))
+                        : new CaffeineCache(name, cache, false));
+                log.info("Cache {} is enabled with spec: {}", name, entity.getSpec());
+            } else {
+                caches.add(new NoOpCache(name));
+                log.info("Cache {} is disabled", name);
+            }
+        });
+        for (String name : List.of(FILM_JSON, USER_JSON)) {
+            caches.add(new CaffeineCache(name, Caffeine.newBuilder()
+                    .maximumWeight(properties.getJsonFragmentsMaxBytes())
+                    .weigher((Object key, Object fragment) -> ((JsonFragmentCache.Fragment) fragment).json().length)
+                    .expireAfterWrite(properties.getJsonFragmentsTtl())
+                    .recordStats()
+                    .build(), false));
+            log.info("Cache {} is enabled with {} bytes of JSON fragments for {}", name,
+                    properties.getJsonFragmentsMaxBytes(), properties.getJsonFragmentsTtl());
+        }
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        // puts and evictions made inside a transaction are applied after it commits
+        cacheManager.setCaches(caches.stream().<Cache>map(TransactionAwareCacheDecorator::new).toList());
+        return cacheManager;
+    }
+}
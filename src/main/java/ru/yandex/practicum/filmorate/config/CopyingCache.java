@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.function.UnaryOperator;
+
+// films and users are mutable, so the cache keeps its own copy and hands out a new one on every read;
+// it stays a CaffeineCache, so the cache metrics still find the native cache behind it
+public class CopyingCache extends CaffeineCache {
+    private final UnaryOperator<Object> copier;
+
+    public CopyingCache(String name, Cache<Object, Object> cache, UnaryOperator<Object> copier) {
+        super(name, cache, false);
+        this.copier = copier;
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+        return super.toStoreValue(userValue == null ? null : copier.apply(userValue));
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        Object value = super.fromStoreValue(storeValue);
+        return value == null ? null : copier.apply(value);
+    }
+}
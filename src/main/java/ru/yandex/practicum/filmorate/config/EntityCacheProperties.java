@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.cache")
+public class EntityCacheProperties {
+    private boolean enabled = true;
+    private long jsonFragmentsMaxBytes = 64L * 1024 * 1024;
+    private Duration jsonFragmentsTtl = Duration.ofMinutes(10);
+    private Map<String, Spec> entities = new LinkedHashMap<>(Map.of(
+            CacheConfig.FILMS, new Spec(),
+            CacheConfig.USERS, new Spec()
+    ));
+
+    @Data
+    public static class Spec {
+        private boolean enabled = true;
+        private String spec = "maximumSize=10000,expireAfterWrite=10m";
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+@Configuration
+@EnableConfigurationProperties(HttpLogProperties.class)
+public class HttpLogConfig {
+    @Bean
+    public Predicate<HttpRequest> requestCondition(HttpLogProperties properties) {
+        double sampleRate = properties.getSampleRate();
+        return request -> sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    @Bean(destroyMethod = "close")
+    public AsyncHttpLogWriter asyncHttpLogWriter(HttpLogProperties properties, MeterRegistry meterRegistry) {
+        return new AsyncHttpLogWriter(properties.getQueueCapacity(), meterRegistry);
+    }
+}
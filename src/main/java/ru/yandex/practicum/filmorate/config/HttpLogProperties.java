@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.http-log")
+public class HttpLogProperties {
+    private double sampleRate = 1.0;
+    private int queueCapacity = 10_000;
+}
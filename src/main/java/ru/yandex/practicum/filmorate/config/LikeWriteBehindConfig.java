@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+import ru.yandex.practicum.filmorate.service.DataVersions;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+
+@Configuration
+@EnableConfigurationProperties(LikeWriteBehindProperties.class)
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class LikeWriteBehindConfig {
+    @Bean(destroyMethod = "close")
+    public LikeWriteBehindQueue likeWriteBehindQueue(FilmRepository filmRepository, UserRepository userRepository,
+                                                     DataVersions dataVersions,
+                                                     LikeWriteBehindProperties properties) {
+        return new LikeWriteBehindQueue(filmRepository, userRepository, dataVersions, properties);
+    }
+}
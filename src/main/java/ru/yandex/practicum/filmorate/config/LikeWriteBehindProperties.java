@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.likes.write-behind")
+public class LikeWriteBehindProperties {
+    private boolean enabled = false;
+    private int capacity = 10_000;
+    private int batchSize = 1_000;
+    private Duration flushInterval = Duration.ofMillis(100);
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Aspect
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+    public static final String CALLS = "filmorate.repository.calls";
+    public static final String ROWS = "filmorate.repository.rows";
+    public static final String ERRORS = "filmorate.repository.errors";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, MethodMeters> methodMeters = new ConcurrentHashMap<>();
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.repository..Jdbc*Repository.*(..)) || " +
+            "execution(public * ru.yandex.practicum.filmorate.repository..Sharded*Repository.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMeters meters = methodMeters.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                method -> new MethodMeters(joinPoint.getTarget().getClass().getSimpleName(), method.getName()));
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            meters.recordError(System.nanoTime() - start, e);
+            throw e;
+        }
+        meters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        double rows = countRows(result);
+        if (rows >= 0) {
+            meters.rows.record(rows);
+        }
+        return result;
+    }
+
+    static double countRows(Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.map(RepositoryMetricsAspect::countRows).orElse(0.0);
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Boolean affected) {
+            return affected ? 1 : 0;
+        }
+        if (result instanceof Integer affectedRows) {
+            return affectedRows;
+        }
+        if (result instanceof long[] ids) {
+            return ids.length;
+        }
+        return result == null ? -1 : 1;
+    }
+
+    private class MethodMeters {
+        private final String repository;
+        private final String method;
+        private final Timer success;
+        private final DistributionSummary rows;
+
+        MethodMeters(String repository, String method) {
+            this.repository = repository;
+            this.method = method;
+            this.success = timer("success", "none");
+            this.rows = DistributionSummary.builder(ROWS)
+                    .description("Rows returned or affected by JDBC repository calls")
+                    .tags("repository", repository, "method", method)
+                    .register(meterRegistry);
+        }
+
+        void recordError(long nanos, Throwable e) {
+            String exception = e.getClass().getSimpleName();
+            timer("error", exception).record(nanos, TimeUnit.NANOSECONDS);
+            Counter.builder(ERRORS)
+                    .description("Failed JDBC repository calls")
+                    .tags("repository", repository, "method", method, "exception", exception)
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        private Timer timer(String outcome, String exception) {
+            return Timer.builder(CALLS)
+                    .description("Duration of JDBC repository calls")
+                    .tags("repository", repository, "method", method, "outcome", outcome, "exception", exception)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "filmorate.sharding")
+public class ShardingProperties {
+    private boolean enabled = false;
+    private int count = 4;
+    private String urlTemplate = "jdbc:h2:file:./db/filmorate-users-%d";
+    private String username = "sa";
+    private String password = "password";
+    private int poolSize = 4;
+}
@@ -1,22 +1,114 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeBatchResult;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.service.DataVersions;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/films")
 @RequiredArgsConstructor
+@Validated
 public class FilmController {
+    private static final int MAX_LIKES_BATCH_SIZE = 10_000;
+    private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    private static final String SORT_BY_ID = "id";
+    private static final String SORT_BY_POPULARITY = "popular";
+
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final DataVersions dataVersions;
+    private final JsonResponseCache responseCache;
+    private final JsonFragmentCache fragmentCache;
 
     @GetMapping
-    public Collection<Film> getAll() {
-        return filmService.getAll();
+    public ResponseEntity<byte[]> getAll(
+            @RequestParam(name = "limit", defaultValue = Pagination.DEFAULT_LIMIT) @Positive @Max(Pagination.MAX_LIMIT) int limit,
+            @RequestParam(name = "after", defaultValue = "0") @PositiveOrZero long afterId,
+            @RequestParam(name = "all", defaultValue = "false") boolean all,
+            @RequestParam(name = "genre", required = false) Set<Integer> genreIds,
+            @RequestParam(name = "mpa", required = false) Set<Integer> mpaIds,
+            @RequestParam(name = "yearFrom", required = false) Integer yearFrom,
+            @RequestParam(name = "yearTo", required = false) Integer yearTo,
+            @RequestParam(name = "sort", defaultValue = SORT_BY_ID)
+            @Pattern(regexp = SORT_BY_ID + "|" + SORT_BY_POPULARITY) String sort,
+            WebRequest request) throws IOException {
+        boolean byPopularity = SORT_BY_POPULARITY.equals(sort);
+        if (byPopularity) {
+            filmService.flushLikes();
+        }
+        if (request.checkNotModified(byPopularity ? dataVersions.getPopularFilmsTag() : dataVersions.getFilmsTag())) {
+            return null;
+        }
+
+        FilmFilter filter = FilmFilter.builder()
+                .genreIds(genreIds == null ? Set.of() : genreIds)
+                .mpaIds(mpaIds == null ? Set.of() : mpaIds)
+                .yearFrom(yearFrom)
+                .yearTo(yearTo)
+                .build();
+        if (byPopularity || all) {
+            Collection<Film> films;
+            if (byPopularity) {
+                films = filmService.findMostPopular(filter, all ? Integer.MAX_VALUE : limit);
+            } else {
+                films = filter.isEmpty() ? filmService.getAll() : filmService.find(filter, 0, Integer.MAX_VALUE);
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(fragmentCache.writeFilms(films));
+        }
+        Collection<Film> films = filter.isEmpty()
+                ? filmService.getPage(afterId, limit)
+                : filmService.find(filter, afterId, limit);
+        return Pagination.page(films, fragmentCache.writeFilms(films), limit, Film::getId);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<byte[]> search(
+            @RequestParam(name = "q") @NotBlank @Size(max = MAX_SEARCH_QUERY_LENGTH) String query,
+            @RequestParam(name = "limit", defaultValue = "10") @Positive @Max(Pagination.MAX_LIMIT) int limit,
+            WebRequest request) throws IOException {
+        if (request.checkNotModified(dataVersions.getFilmsTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(fragmentCache.writeFilms(filmService.search(query, limit)));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return NdjsonResponses.stream(objectMapper, Film.class, filmService::streamAll);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportResult importAll(InputStream body) {
+        return filmService.importAll(NdjsonRequests.read(objectMapper, Film.class, body));
     }
 
     @GetMapping("/{id}")
@@ -39,9 +131,32 @@ public class FilmController {
         filmService.addLike(filmId, userId);
     }
 
+    @PostMapping("/likes/batch")
+    public FilmLikeBatchResult addLikes(
+            @RequestBody @NotEmpty @Size(max = MAX_LIKES_BATCH_SIZE) List<FilmLike> likes) {
+        return filmService.addLikes(likes);
+    }
+
+    @DeleteMapping("/likes/batch")
+    public FilmLikeBatchResult removeLikes(
+            @RequestBody @NotEmpty @Size(max = MAX_LIKES_BATCH_SIZE) List<FilmLike> likes) {
+        return filmService.removeLikes(likes);
+    }
+
     @GetMapping("/popular")
-    public Collection<Film> getMostPopular(@RequestParam(name = "count", defaultValue = "10") @Positive long count) {
-        return filmService.getMostPopular(count);
+    public ResponseEntity<byte[]> getMostPopular(
+            @RequestParam(name = "count", defaultValue = "10") @Positive long count,
+            WebRequest request) throws IOException {
+        // queued likes are written first, so the version read below already counts them
+        filmService.flushLikes();
+        String version = dataVersions.getPopularFilmsTag();
+        if (responseCache.checkNotModified(request, version)) {
+            return null;
+        }
+        // every count above the number of films gives the same list, so they share one cache entry
+        long limit = Math.min(count, filmService.getFilmCount());
+        return responseCache.getEncoded("popular:" + limit, version, request,
+                () -> fragmentCache.writeFilms(filmService.getMostPopular(limit)));
     }
 
     @DeleteMapping("/{id}/like/{userId}")
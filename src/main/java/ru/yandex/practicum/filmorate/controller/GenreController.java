@@ -1,12 +1,15 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.DataVersions;
 import ru.yandex.practicum.filmorate.service.GenreService;
 
-import java.util.Collection;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/genres")
@@ -14,10 +17,16 @@ import java.util.Collection;
 @Validated
 public class GenreController {
     private final GenreService genreService;
+    private final DataVersions dataVersions;
+    private final JsonResponseCache responseCache;
 
     @GetMapping
-    public Collection<Genre> getAll() {
-        return genreService.getAll();
+    public ResponseEntity<byte[]> getAll(WebRequest request) throws IOException {
+        String version = dataVersions.getReferenceDataTag();
+        if (responseCache.checkNotModified(request, version)) {
+            return null;
+        }
+        return responseCache.get("genres", version, request, genreService::getAll);
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.config.CacheConfig;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+@Component
+public class JsonFragmentCache {
+    public static final String BYTES = "filmorate.json.fragments.bytes";
+
+    private final ObjectMapper objectMapper;
+    private final Cache filmFragments;
+    private final Cache userFragments;
+
+    public JsonFragmentCache(ObjectMapper objectMapper, Optional<CacheManager> cacheManager,
+                             MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.filmFragments = cacheManager.map(manager -> manager.getCache(CacheConfig.FILM_JSON)).orElse(null);
+        this.userFragments = cacheManager.map(manager -> manager.getCache(CacheConfig.USER_JSON)).orElse(null);
+        registerSize(meterRegistry, filmFragments);
+        registerSize(meterRegistry, userFragments);
+    }
+
+    public byte[] writeFilms(Collection<Film> films) throws IOException {
+        return writeList(films, Film::getId, Film::copy, filmFragments);
+    }
+
+    public byte[] writeUsers(Collection<User> users) throws IOException {
+        return writeList(users, User::getId, User::copy, userFragments);
+    }
+
+    private <T> byte[] writeList(Collection<T> items, Function<T, Long> idGetter, UnaryOperator<T> copier,
+                                 Cache fragments) throws IOException {
+        byte[][] encoded = new byte[items.size()][];
+        int size = Math.max(2, items.size() + 1);
+        int index = 0;
+        for (T item : items) {
+            Long id = idGetter.apply(item);
+            Fragment fragment = fragments == null || id == null ? null : fragments.get(id, Fragment.class);
+            // a fragment put after a concurrent eviction holds an older state of the entity, so it is never served
+            byte[] json;
+            if (fragment != null && fragment.source().equals(item)) {
+                json = fragment.json();
+            } else {
+                json = objectMapper.writeValueAsBytes(item);
+                if (fragments != null && id != null) {
+                    fragments.put(id, new Fragment(copier.apply(item), json));
+                }
+            }
+            encoded[index++] = json;
+            size += json.length;
+        }
+
+        byte[] json = new byte[size];
+        int position = 0;
+        json[position++] = '[';
+        for (int i = 0; i < encoded.length; i++) {
+            if (i > 0) {
+                json[position++] = ',';
+            }
+            System.arraycopy(encoded[i], 0, json, position, encoded[i].length);
+            position += encoded[i].length;
+        }
+        json[position] = ']';
+        return json;
+    }
+
+    private static void registerSize(MeterRegistry meterRegistry, Cache fragments) {
+        if (fragments != null
+                && fragments.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            Gauge.builder(BYTES, nativeCache, cache -> cache.policy().eviction()
+                            .map(eviction -> eviction.weightedSize().orElse(0))
+                            .orElse(0L))
+                    .description("Bytes of cached JSON fragments")
+                    .tag("cache", fragments.getName())
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    public record Fragment(Object source, byte[] json) {
+    }
+}
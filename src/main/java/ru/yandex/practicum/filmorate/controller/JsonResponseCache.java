@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class JsonResponseCache {
+    private static final long MAX_BYTES = 32L * 1024 * 1024;
+    private static final int MIN_GZIP_SIZE = 1_024;
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entry> entries = Caffeine.newBuilder()
+            .maximumWeight(MAX_BYTES)
+            .weigher((String key, Entry entry) -> entry.json().length + (entry.gzip() == null ? 0 : entry.gzip().length))
+            .build();
+
+    public JsonResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // identity and gzip bodies of a version share one tag, so the tag is weak
+    public boolean checkNotModified(WebRequest request, String version) {
+        return request.checkNotModified("W/\"" + version + "\"");
+    }
+
+    public ResponseEntity<byte[]> get(String key, String version, WebRequest request, Supplier<?> body) throws IOException {
+        return getEncoded(key, version, request, () -> objectMapper.writeValueAsBytes(body.get()));
+    }
+
+    public ResponseEntity<byte[]> getEncoded(String key, String version, WebRequest request, JsonEncoder encoder)
+            throws IOException {
+        Entry entry = entries.getIfPresent(key);
+        if (entry == null || !entry.version().equals(version)) {
+            entry = encode(version, encoder.encode());
+            entries.put(key, entry);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (entry.gzip() != null && acceptsGzip(request)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(entry.gzip());
+        }
+        return response.body(entry.json());
+    }
+
+    private static Entry encode(String version, byte[] json) throws IOException {
+        if (json.length < MIN_GZIP_SIZE) {
+            return new Entry(version, json, null);
+        }
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(json);
+        }
+        return new Entry(version, json, gzip.toByteArray());
+    }
+
+    private static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains(GZIP);
+    }
+
+    @FunctionalInterface
+    public interface JsonEncoder {
+        byte[] encode() throws IOException;
+    }
+
+    private record Entry(String version, byte[] json, byte[] gzip) {
+    }
+}
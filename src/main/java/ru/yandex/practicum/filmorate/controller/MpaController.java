@@ -1,12 +1,15 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.DataVersions;
 import ru.yandex.practicum.filmorate.service.MpaService;
 
-import java.util.Collection;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/mpa")
@@ -14,10 +17,16 @@ import java.util.Collection;
 @Validated
 public class MpaController {
     private final MpaService mpaService;
+    private final DataVersions dataVersions;
+    private final JsonResponseCache responseCache;
 
     @GetMapping
-    public Collection<Mpa> getAll() {
-        return mpaService.getAll();
+    public ResponseEntity<byte[]> getAll(WebRequest request) throws IOException {
+        String version = dataVersions.getReferenceDataTag();
+        if (responseCache.checkNotModified(request, version)) {
+            return null;
+        }
+        return responseCache.get("mpa", version, request, mpaService::getAll);
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+final class NdjsonRequests {
+    private NdjsonRequests() {
+    }
+
+    // every line is parsed on its own, so a malformed line fails only its next() call and the rest can be read
+    static <T> Iterator<T> read(ObjectMapper objectMapper, Class<T> type, InputStream inputStream) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        return new Iterator<>() {
+            private String nextLine;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (nextLine == null) {
+                        String line = reader.readLine();
+                        if (line == null) {
+                            return false;
+                        }
+                        if (!line.isBlank()) {
+                            nextLine = line;
+                        }
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String line = nextLine;
+                nextLine = null;
+                try {
+                    T value = objectMapper.readValue(line, type);
+                    if (value == null) {
+                        throw new ValidationException("Malformed NDJSON value: null");
+                    }
+                    return value;
+                } catch (JsonProcessingException e) {
+                    throw new ValidationException("Malformed NDJSON value: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+final class Pagination {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String DEFAULT_LIMIT = "100";
+    static final long MAX_LIMIT = 1000;
+
+    private Pagination() {
+    }
+
+    static <T> ResponseEntity<byte[]> page(Collection<T> items, byte[] json, int limit, Function<T, Long> idGetter) {
+        return ok(items, limit, idGetter)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+
+    private static <T> ResponseEntity.BodyBuilder ok(Collection<T> items, int limit, Function<T, Long> idGetter) {
+        if (items.size() < limit) {
+            return ResponseEntity.ok();
+        }
+
+        Long nextCursor = items.stream()
+                .reduce((first, second) -> second)
+                .map(idGetter)
+                .orElseThrow();
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
+    }
+}
@@ -1,12 +1,23 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 
 @RestController
@@ -14,11 +25,35 @@ import java.util.Collection;
 @RequiredArgsConstructor
 @Validated
 public class UserController {
+    private static final int MAX_SUGGESTIONS_LIMIT = 100;
+    private static final int MAX_RECOMMENDATIONS_LIMIT = 100;
+
     private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final JsonFragmentCache fragmentCache;
 
     @GetMapping
-    public Collection<User> getAll() {
-        return userService.getAll();
+    public ResponseEntity<byte[]> getAll(
+            @RequestParam(name = "limit", defaultValue = Pagination.DEFAULT_LIMIT) @Positive @Max(Pagination.MAX_LIMIT) int limit,
+            @RequestParam(name = "after", defaultValue = "0") @PositiveOrZero long afterId,
+            @RequestParam(name = "all", defaultValue = "false") boolean all) throws IOException {
+        if (all) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(fragmentCache.writeUsers(userService.getAll()));
+        }
+        Collection<User> users = userService.getPage(afterId, limit);
+        return Pagination.page(users, fragmentCache.writeUsers(users), limit, User::getId);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return NdjsonResponses.stream(objectMapper, User.class, userService::streamAll);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportResult importAll(InputStream body) {
+        return userService.importAll(NdjsonRequests.read(objectMapper, User.class, body));
     }
 
     @GetMapping("/{id}")
@@ -47,12 +82,28 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public Collection<User> getFriends(@PathVariable("id") long userId) {
-        return userService.getFriends(userId);
+    public ResponseEntity<byte[]> getFriends(@PathVariable("id") long userId) throws IOException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(fragmentCache.writeUsers(userService.getFriends(userId)));
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
     public Collection<User> getMutualFriends(@PathVariable("id") long firstUserId, @PathVariable("otherId") long secondUserId) {
         return userService.getMutualFriends(firstUserId, secondUserId);
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public Collection<User> getFriendSuggestions(
+            @PathVariable("id") long userId,
+            @RequestParam(name = "limit", defaultValue = "10") @Positive @Max(MAX_SUGGESTIONS_LIMIT) int limit) {
+        return userService.getFriendSuggestions(userId, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Collection<Film> getRecommendations(
+            @PathVariable("id") long userId,
+            @RequestParam(name = "limit", defaultValue = "10") @Positive @Max(MAX_RECOMMENDATIONS_LIMIT) int limit) {
+        return userService.getRecommendations(userId, limit);
+    }
 }
\ No newline at end of file
@@ -21,7 +21,12 @@ public class Film {
     private Integer duration;
     private Mpa mpa;
     private final Set<Genre> genres = new HashSet<>();
-    private final Set<Long> likes = new HashSet<>();
+
+    public Film copy() {
+        Film copy = toBuilder().build();
+        copy.genres.addAll(genres);
+        return copy;
+    }
 
     public Map<String, Object> toMap() {
         Map<String, Object> values = new HashMap<>();
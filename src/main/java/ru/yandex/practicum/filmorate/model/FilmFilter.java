@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Set;
+
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+public class FilmFilter {
+    @Builder.Default
+    private Set<Integer> genreIds = Set.of();
+    @Builder.Default
+    private Set<Integer> mpaIds = Set.of();
+    private Integer yearFrom;
+    private Integer yearTo;
+
+    public boolean isEmpty() {
+        return genreIds.isEmpty() && mpaIds.isEmpty() && yearFrom == null && yearTo == null;
+    }
+}
@@ -2,12 +2,14 @@ package ru.yandex.practicum.filmorate.model;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
-@Data
+@Value
 @Builder(toBuilder = true)
+@Jacksonized
 @AllArgsConstructor
 public class Genre {
-    private Integer id;
-    private String name;
+    Integer id;
+    String name;
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportResult {
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private long imported;
+    private long failed;
+    private final List<ImportFailure> failures = new ArrayList<>();
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void addFailure(long line, String error) {
+        failed++;
+        if (failures.size() < MAX_REPORTED_FAILURES) {
+            failures.add(new ImportFailure(line, error));
+        }
+    }
+}
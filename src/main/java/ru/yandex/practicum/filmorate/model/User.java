@@ -25,6 +25,12 @@ public class User {
     @JsonIgnore
     private final Set<Long> friends = new HashSet<>();
 
+    public User copy() {
+        User copy = toBuilder().build();
+        copy.friends.addAll(friends);
+        return copy;
+    }
+
     public Map<String, Object> toMap() {
         Map<String, Object> values = new HashMap<>();
         values.put("user_id", id);
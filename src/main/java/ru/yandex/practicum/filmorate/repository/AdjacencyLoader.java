@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+public final class AdjacencyLoader {
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private AdjacencyLoader() {
+    }
+
+    public static void load(NamedParameterJdbcOperations jdbc, String sqlQuery, BiConsumer<Long, long[]> consumer) {
+        MapOrderedRowsToAdjacency rowsToAdjacency = new MapOrderedRowsToAdjacency(consumer);
+        jdbc.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, rowsToAdjacency);
+        rowsToAdjacency.complete();
+    }
+
+    private static class MapOrderedRowsToAdjacency implements RowCallbackHandler {
+        private final BiConsumer<Long, long[]> consumer;
+        private long id;
+        private long[] ids = new long[16];
+        private int count;
+
+        MapOrderedRowsToAdjacency(BiConsumer<Long, long[]> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowId = rs.getLong(1);
+            if (count > 0 && rowId != id) {
+                complete();
+            }
+            id = rowId;
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[count++] = rs.getLong(2);
+        }
+
+        void complete() {
+            if (count > 0) {
+                consumer.accept(id, Arrays.copyOf(ids, count));
+                count = 0;
+            }
+        }
+    }
+}
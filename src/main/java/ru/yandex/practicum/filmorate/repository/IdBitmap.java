@@ -0,0 +1,263 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.Arrays;
+
+public final class IdBitmap {
+    public static final IdBitmap EMPTY = new IdBitmap(new long[0], new Container[0]);
+    public static final int CHUNK_WORDS = 1024;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int LOW_MASK = (1 << CHUNK_BITS) - 1;
+    // a chunk of 65536 ids is kept as sorted low bits until it outgrows the 8 KB of a plain bit array
+    private static final int MAX_SPARSE_SIZE = 4096;
+
+    private final long[] keys;
+    private final Container[] containers;
+
+    private IdBitmap(long[] keys, Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean contains(long id) {
+        int index = Arrays.binarySearch(keys, id >>> CHUNK_BITS);
+        return index >= 0 && containers[index].contains((int) id & LOW_MASK);
+    }
+
+    public IdBitmap with(long id) {
+        int low = (int) id & LOW_MASK;
+        int index = Arrays.binarySearch(keys, id >>> CHUNK_BITS);
+        if (index >= 0) {
+            Container updated = containers[index].with(low);
+            if (updated == containers[index]) {
+                return this;
+            }
+            Container[] updatedContainers = containers.clone();
+            updatedContainers[index] = updated;
+            return new IdBitmap(keys, updatedContainers);
+        }
+
+        index = -index - 1;
+        long[] updatedKeys = new long[keys.length + 1];
+        Container[] updatedContainers = new Container[containers.length + 1];
+        System.arraycopy(keys, 0, updatedKeys, 0, index);
+        System.arraycopy(containers, 0, updatedContainers, 0, index);
+        updatedKeys[index] = id >>> CHUNK_BITS;
+        updatedContainers[index] = new Container(new char[]{(char) low}, null, 1);
+        System.arraycopy(keys, index, updatedKeys, index + 1, keys.length - index);
+        System.arraycopy(containers, index, updatedContainers, index + 1, containers.length - index);
+        return new IdBitmap(updatedKeys, updatedContainers);
+    }
+
+    public IdBitmap without(long id) {
+        int index = Arrays.binarySearch(keys, id >>> CHUNK_BITS);
+        if (index < 0) {
+            return this;
+        }
+        Container updated = containers[index].without((int) id & LOW_MASK);
+        if (updated == containers[index]) {
+            return this;
+        }
+        if (updated != null) {
+            Container[] updatedContainers = containers.clone();
+            updatedContainers[index] = updated;
+            return new IdBitmap(keys, updatedContainers);
+        }
+        if (keys.length == 1) {
+            return EMPTY;
+        }
+
+        long[] updatedKeys = new long[keys.length - 1];
+        Container[] updatedContainers = new Container[containers.length - 1];
+        System.arraycopy(keys, 0, updatedKeys, 0, index);
+        System.arraycopy(containers, 0, updatedContainers, 0, index);
+        System.arraycopy(keys, index + 1, updatedKeys, index, keys.length - index - 1);
+        System.arraycopy(containers, index + 1, updatedContainers, index, containers.length - index - 1);
+        return new IdBitmap(updatedKeys, updatedContainers);
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public long getCardinality() {
+        long cardinality = 0;
+        for (Container container : containers) {
+            cardinality += container.cardinality;
+        }
+        return cardinality;
+    }
+
+    public long[] getChunkKeys() {
+        return keys.clone();
+    }
+
+    public boolean orChunkInto(long key, long[] words) {
+        int index = Arrays.binarySearch(keys, key);
+        if (index < 0) {
+            return false;
+        }
+        containers[index].orInto(words);
+        return true;
+    }
+
+    public static long chunkKey(long id) {
+        return id >>> CHUNK_BITS;
+    }
+
+    public static long[] chunkIds(long key, long[] words, long afterId) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+
+        long[] ids = new long[count];
+        count = 0;
+        long base = key << CHUNK_BITS;
+        for (int i = 0; i < words.length; i++) {
+            for (long word = words[i]; word != 0; word &= word - 1) {
+                long id = base + ((long) i << 6) + Long.numberOfTrailingZeros(word);
+                if (id > afterId) {
+                    ids[count++] = id;
+                }
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    public static final class Builder {
+        private final long[] words = new long[CHUNK_WORDS];
+        private long[] keys = new long[4];
+        private Container[] containers = new Container[4];
+        private int size;
+        private long key = -1;
+
+        private Builder() {
+        }
+
+        public void add(long id) {
+            long idKey = id >>> CHUNK_BITS;
+            if (idKey != key) {
+                if (idKey < key) {
+                    throw new IllegalArgumentException("Ids must be added in ascending order: " + id);
+                }
+                flush();
+                key = idKey;
+            }
+            int low = (int) id & LOW_MASK;
+            words[low >>> 6] |= 1L << low;
+        }
+
+        public IdBitmap build() {
+            flush();
+            return size == 0 ? EMPTY : new IdBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size));
+        }
+
+        private void flush() {
+            if (key < 0) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            keys[size] = key;
+            containers[size++] = Container.of(words);
+            Arrays.fill(words, 0);
+            key = -1;
+        }
+    }
+
+    private static final class Container {
+        private final char[] values;
+        private final long[] words;
+        private final int cardinality;
+
+        private Container(char[] values, long[] words, int cardinality) {
+            this.values = values;
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        static Container of(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality > MAX_SPARSE_SIZE) {
+                return new Container(null, words.clone(), cardinality);
+            }
+
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    values[count++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return new Container(values, null, cardinality);
+        }
+
+        boolean contains(int low) {
+            if (words != null) {
+                return (words[low >>> 6] & 1L << low) != 0;
+            }
+            return Arrays.binarySearch(values, (char) low) >= 0;
+        }
+
+        Container with(int low) {
+            if (contains(low)) {
+                return this;
+            }
+            if (words != null || cardinality == MAX_SPARSE_SIZE) {
+                long[] updated = new long[CHUNK_WORDS];
+                orInto(updated);
+                updated[low >>> 6] |= 1L << low;
+                return new Container(null, updated, cardinality + 1);
+            }
+
+            int index = -Arrays.binarySearch(values, (char) low) - 1;
+            char[] updated = new char[values.length + 1];
+            System.arraycopy(values, 0, updated, 0, index);
+            updated[index] = (char) low;
+            System.arraycopy(values, index, updated, index + 1, values.length - index);
+            return new Container(updated, null, cardinality + 1);
+        }
+
+        Container without(int low) {
+            if (!contains(low)) {
+                return this;
+            }
+            if (cardinality == 1) {
+                return null;
+            }
+            if (words != null) {
+                long[] updated = words.clone();
+                updated[low >>> 6] &= ~(1L << low);
+                return cardinality - 1 > MAX_SPARSE_SIZE ? new Container(null, updated, cardinality - 1) : of(updated);
+            }
+
+            int index = Arrays.binarySearch(values, (char) low);
+            char[] updated = new char[values.length - 1];
+            System.arraycopy(values, 0, updated, 0, index);
+            System.arraycopy(values, index + 1, updated, index, values.length - index - 1);
+            return new Container(updated, null, cardinality - 1);
+        }
+
+        void orInto(long[] target) {
+            if (words != null) {
+                for (int i = 0; i < CHUNK_WORDS; i++) {
+                    target[i] |= words[i];
+                }
+            } else {
+                for (char value : values) {
+                    target[value >>> 6] |= 1L << value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public final class RollbackCompensation {
+    private RollbackCompensation() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void onRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        Deque<Runnable> undos = (Deque<Runnable>) TransactionSynchronizationManager
+                .getResource(RollbackCompensation.class);
+        if (undos == null) {
+            Deque<Runnable> transactionUndos = new ArrayDeque<>();
+            TransactionSynchronizationManager.bindResource(RollbackCompensation.class, transactionUndos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RollbackCompensation.class);
+                    if (status == STATUS_ROLLED_BACK) {
+                        // undo in reverse order, so that later changes of the same entry are reverted first
+                        transactionUndos.forEach(Runnable::run);
+                    }
+                }
+            });
+            undos = transactionUndos;
+        }
+        undos.push(undo);
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public final class SortedIdArrays {
+    public static final long[] EMPTY = new long[0];
+
+    private SortedIdArrays() {
+    }
+
+    public static boolean contains(long[] sortedIds, long id) {
+        return Arrays.binarySearch(sortedIds, id) >= 0;
+    }
+
+    public static long[] insert(long[] sortedIds, long id) {
+        int position = Arrays.binarySearch(sortedIds, id);
+        if (position >= 0) {
+            return null;
+        }
+        position = -position - 1;
+        long[] updatedIds = new long[sortedIds.length + 1];
+        System.arraycopy(sortedIds, 0, updatedIds, 0, position);
+        updatedIds[position] = id;
+        System.arraycopy(sortedIds, position, updatedIds, position + 1, sortedIds.length - position);
+        return updatedIds;
+    }
+
+    public static long[] delete(long[] sortedIds, long id) {
+        int position = Arrays.binarySearch(sortedIds, id);
+        if (position < 0) {
+            return null;
+        }
+        long[] updatedIds = new long[sortedIds.length - 1];
+        System.arraycopy(sortedIds, 0, updatedIds, 0, position);
+        System.arraycopy(sortedIds, position + 1, updatedIds, position, updatedIds.length - position);
+        return updatedIds;
+    }
+
+    public static void put(Map<Long, long[]> adjacency, long id, long[] sortedIds) {
+        if (sortedIds == null) {
+            return;
+        }
+        if (sortedIds.length == 0) {
+            adjacency.remove(id);
+        } else {
+            adjacency.put(id, sortedIds);
+        }
+    }
+
+    public static long[] sample(long[] sortedIds, int maxSize) {
+        if (sortedIds.length <= maxSize) {
+            return sortedIds;
+        }
+        long[] sampledIds = new long[maxSize];
+        for (int i = 0; i < maxSize; i++) {
+            sampledIds[i] = sortedIds[(int) ((long) i * sortedIds.length / maxSize)];
+        }
+        return sampledIds;
+    }
+
+    public static long[] concatAndSort(long[][] arrays) {
+        int total = 0;
+        for (long[] array : arrays) {
+            total += array.length;
+        }
+        long[] result = new long[total];
+        int position = 0;
+        for (long[] array : arrays) {
+            System.arraycopy(array, 0, result, position, array.length);
+            position += array.length;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    public static long[] topByScore(long[] ids, int[] scores, int count, int maxScore, int limit) {
+        int[] scoreCounts = new int[maxScore + 2];
+        for (int i = 0; i < count; i++) {
+            scoreCounts[scores[i]]++;
+        }
+
+        int[] offsets = new int[maxScore + 2];
+        int selected = 0;
+        int threshold = maxScore + 1;
+        while (threshold > 1 && selected < limit) {
+            threshold--;
+            offsets[threshold] = selected;
+            selected += scoreCounts[threshold];
+        }
+
+        long[] result = new long[Math.min(limit, selected)];
+        for (int i = 0; i < count; i++) {
+            if (scores[i] >= threshold && offsets[scores[i]] < result.length) {
+                result[offsets[scores[i]]++] = ids[i];
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,180 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.config.ShardingProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// users live on shard (user_id - 1) % count, every shard hands out ids of its own residue class
+@Slf4j
+public class UserShards implements AutoCloseable {
+    private static final String SCHEMA_LOCATION = "shard-schema.sql";
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<NamedParameterJdbcOperations> jdbcs = new ArrayList<>();
+    private final List<TransactionTemplate> transactions = new ArrayList<>();
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final ExecutorService executor;
+
+    public UserShards(ShardingProperties properties) {
+        int count = properties.getCount();
+        if (count < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + count);
+        }
+
+        String schema = readSchema();
+        try {
+            for (int shard = 0; shard < count; shard++) {
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setPoolName("user-shard-" + shard);
+                dataSource.setJdbcUrl(String.format(properties.getUrlTemplate(), shard));
+                dataSource.setUsername(properties.getUsername());
+                dataSource.setPassword(properties.getPassword());
+                dataSource.setMaximumPoolSize(properties.getPoolSize());
+                dataSources.add(dataSource);
+
+                new ResourceDatabasePopulator(new ByteArrayResource(schema
+                        .replace("${first_id}", String.valueOf(shard + 1))
+                        .replace("${shard_count}", String.valueOf(count))
+                        .getBytes(StandardCharsets.UTF_8))).execute(dataSource);
+                NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(dataSource);
+                checkIdIncrement(jdbc, shard, count);
+                jdbcs.add(jdbc);
+                transactions.add(new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+            }
+        } catch (RuntimeException e) {
+            dataSources.forEach(HikariDataSource::close);
+            throw e;
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(count * properties.getPoolSize(), runnable -> {
+            Thread thread = new Thread(runnable, "user-shard-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Users, friends and likes are sharded across {} databases", count);
+    }
+
+    private static String readSchema() {
+        try {
+            return new ClassPathResource(SCHEMA_LOCATION).getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read " + SCHEMA_LOCATION, e);
+        }
+    }
+
+    // a shard created for another count would hand out ids that route to a different shard
+    private static void checkIdIncrement(NamedParameterJdbcOperations jdbc, int shard, int count) {
+        String sqlQuery = "SELECT \"IDENTITY_INCREMENT\" FROM \"INFORMATION_SCHEMA\".\"COLUMNS\" " +
+                "WHERE \"TABLE_NAME\" = 'user' AND \"COLUMN_NAME\" = 'user_id';";
+
+        Long increment = jdbc.getJdbcOperations().queryForObject(sqlQuery, Long.class);
+        if (increment == null || increment != count) {
+            throw new IllegalStateException("Shard " + shard + " was created for " + increment +
+                    " shards, but " + count + " are configured");
+        }
+    }
+
+    public int getCount() {
+        return jdbcs.size();
+    }
+
+    public int shardOf(long userId) {
+        return (int) Math.floorMod(userId - 1, (long) jdbcs.size());
+    }
+
+    public int nextShard() {
+        return Math.floorMod(nextShard.getAndIncrement(), jdbcs.size());
+    }
+
+    public NamedParameterJdbcOperations jdbc(int shard) {
+        return jdbcs.get(shard);
+    }
+
+    public NamedParameterJdbcOperations forUser(long userId) {
+        return jdbcs.get(shardOf(userId));
+    }
+
+    public <T> T inTransaction(int shard, Supplier<T> action) {
+        return transactions.get(shard).execute(status -> action.get());
+    }
+
+    public <T> Map<Integer, List<T>> groupByShard(Collection<T> items, ToLongFunction<T> userId) {
+        Map<Integer, List<T>> groups = new HashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(shardOf(userId.applyAsLong(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    // runs the query on every shard in parallel and returns the results in shard order
+    public <T> List<T> scatter(BiFunction<Integer, NamedParameterJdbcOperations, T> query) {
+        List<Future<T>> futures = new ArrayList<>(jdbcs.size());
+        for (int shard = 0; shard < jdbcs.size(); shard++) {
+            int index = shard;
+            futures.add(executor.submit(() -> query.apply(index, jdbcs.get(index))));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying user shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Can't query user shards", e.getCause());
+        }
+        return results;
+    }
+
+    // adjacency lists of one id can be spread over shards, so they are merged after loading
+    public void loadAdjacency(String sqlQuery, BiConsumer<Long, long[]> consumer) {
+        Map<Long, long[]> merged = new HashMap<>();
+        for (Map<Long, long[]> adjacency : scatter((shard, jdbc) -> {
+            Map<Long, long[]> shardAdjacency = new HashMap<>();
+            AdjacencyLoader.load(jdbc, sqlQuery, shardAdjacency::put);
+            return shardAdjacency;
+        })) {
+            adjacency.forEach((id, ids) -> merged.merge(id, ids,
+                    (current, added) -> SortedIdArrays.concatAndSort(new long[][]{current, added})));
+        }
+        merged.forEach(consumer);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
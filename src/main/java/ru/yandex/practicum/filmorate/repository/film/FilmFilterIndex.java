@@ -0,0 +1,250 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.repository.IdBitmap;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static ru.yandex.practicum.filmorate.repository.SortedIdArrays.EMPTY;
+
+@Component
+public class FilmFilterIndex {
+    private static final int PARALLEL_CHUNKS = 4;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final Comparator<RankedFilm> BY_POPULARITY = Comparator.comparingInt(RankedFilm::likes).reversed()
+            .thenComparingLong(RankedFilm::filmId);
+
+    private final Map<Integer, IdBitmap> genres = new ConcurrentHashMap<>();
+    private final Map<Integer, IdBitmap> mpas = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Integer, IdBitmap> years = new ConcurrentSkipListMap<>();
+    private volatile IdBitmap films = IdBitmap.EMPTY;
+
+    public synchronized FilmAttributes put(long filmId, int releaseYear, Integer mpaId, Collection<Integer> genreIds) {
+        FilmAttributes previous = remove(filmId);
+        add(filmId, new FilmAttributes(releaseYear, mpaId, genreIds.stream().mapToInt(Integer::intValue).toArray()));
+        return previous;
+    }
+
+    public synchronized FilmAttributes remove(long filmId) {
+        if (!films.contains(filmId)) {
+            return null;
+        }
+        films = films.without(filmId);
+        List<Integer> releaseYears = removeFrom(years, filmId);
+        List<Integer> mpaIds = removeFrom(mpas, filmId);
+        int[] genreIds = removeFrom(genres, filmId).stream().mapToInt(Integer::intValue).toArray();
+        return new FilmAttributes(releaseYears.get(0), mpaIds.isEmpty() ? null : mpaIds.get(0), genreIds);
+    }
+
+    public synchronized void restore(long filmId, FilmAttributes attributes) {
+        remove(filmId);
+        if (attributes != null) {
+            add(filmId, attributes);
+        }
+    }
+
+    public synchronized Loader loader() {
+        genres.clear();
+        mpas.clear();
+        years.clear();
+        films = IdBitmap.EMPTY;
+        return new Loader();
+    }
+
+    public long[] find(FilmFilter filter, long afterId, int limit) {
+        List<List<IdBitmap>> dimensions = resolve(filter);
+        if (dimensions == null) {
+            return EMPTY;
+        }
+
+        long[] keys = films.getChunkKeys();
+        int first = Arrays.binarySearch(keys, IdBitmap.chunkKey(afterId));
+        if (first < 0) {
+            first = -first - 1;
+        }
+        int batchSize = keys.length - first >= PARALLEL_CHUNKS ? PARALLELISM : 1;
+        long[] result = new long[Math.min(limit, 1024)];
+        int count = 0;
+        for (int batch = first; batch < keys.length && count < limit; batch += batchSize) {
+            for (long[] chunkIds : evaluate(dimensions, keys, batch, Math.min(batch + batchSize, keys.length), afterId)
+                    .toList()) {
+                int taken = Math.min(chunkIds.length, limit - count);
+                if (count + taken > result.length) {
+                    result = Arrays.copyOf(result, Math.max(count + taken, result.length * 2));
+                }
+                System.arraycopy(chunkIds, 0, result, count, taken);
+                count += taken;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public long[] findTop(FilmFilter filter, LongToIntFunction likes, int limit) {
+        List<List<IdBitmap>> dimensions = resolve(filter);
+        if (dimensions == null) {
+            return EMPTY;
+        }
+
+        long[] keys = films.getChunkKeys();
+        return evaluate(dimensions, keys, 0, keys.length, 0)
+                .flatMap(chunkIds -> top(chunkIds, likes, limit).stream())
+                .sorted(BY_POPULARITY)
+                .limit(limit)
+                .mapToLong(RankedFilm::filmId)
+                .toArray();
+    }
+
+    public long getFilmCount() {
+        return films.getCardinality();
+    }
+
+    private void add(long filmId, FilmAttributes attributes) {
+        films = films.with(filmId);
+        addTo(years, attributes.releaseYear(), filmId);
+        if (attributes.mpaId() != null) {
+            addTo(mpas, attributes.mpaId(), filmId);
+        }
+        for (int genreId : attributes.genreIds()) {
+            addTo(genres, genreId, filmId);
+        }
+    }
+
+    private static void addTo(Map<Integer, IdBitmap> bitmaps, int value, long filmId) {
+        bitmaps.compute(value, (key, bitmap) -> (bitmap == null ? IdBitmap.EMPTY : bitmap).with(filmId));
+    }
+
+    private static List<Integer> removeFrom(Map<Integer, IdBitmap> bitmaps, long filmId) {
+        List<Integer> values = new ArrayList<>();
+        for (Map.Entry<Integer, IdBitmap> entry : bitmaps.entrySet()) {
+            if (entry.getValue().contains(filmId)) {
+                values.add(entry.getKey());
+            }
+        }
+        values.forEach(value -> bitmaps.computeIfPresent(value, (key, bitmap) -> {
+            IdBitmap updated = bitmap.without(filmId);
+            return updated.isEmpty() ? null : updated;
+        }));
+        return values;
+    }
+
+    // values of one dimension are OR-ed and dimensions are AND-ed, null means that nothing can match
+    private List<List<IdBitmap>> resolve(FilmFilter filter) {
+        List<List<IdBitmap>> dimensions = new ArrayList<>();
+        if (!filter.getGenreIds().isEmpty()) {
+            dimensions.add(select(genres, filter.getGenreIds()));
+        }
+        if (!filter.getMpaIds().isEmpty()) {
+            dimensions.add(select(mpas, filter.getMpaIds()));
+        }
+        if (filter.getYearFrom() != null || filter.getYearTo() != null) {
+            int yearFrom = filter.getYearFrom() == null ? Integer.MIN_VALUE : filter.getYearFrom();
+            int yearTo = filter.getYearTo() == null ? Integer.MAX_VALUE : filter.getYearTo();
+            if (yearFrom > yearTo) {
+                return null;
+            }
+            dimensions.add(List.copyOf(years.subMap(yearFrom, true, yearTo, true).values()));
+        }
+        if (dimensions.isEmpty()) {
+            dimensions.add(List.of(films));
+        }
+        return dimensions.stream().anyMatch(List::isEmpty) ? null : dimensions;
+    }
+
+    private static List<IdBitmap> select(Map<Integer, IdBitmap> bitmaps, Set<Integer> values) {
+        return values.stream()
+                .map(bitmaps::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // chunks are independent, so a large range of them is evaluated in parallel
+    private static Stream<long[]> evaluate(List<List<IdBitmap>> dimensions, long[] keys, int from, int to,
+                                           long afterId) {
+        IntStream chunks = IntStream.range(from, to);
+        if (to - from >= PARALLEL_CHUNKS) {
+            chunks = chunks.parallel();
+        }
+        return chunks.mapToObj(i -> evaluateChunk(dimensions, keys[i], afterId));
+    }
+
+    private static long[] evaluateChunk(List<List<IdBitmap>> dimensions, long key, long afterId) {
+        long[] words = null;
+        for (List<IdBitmap> dimension : dimensions) {
+            long[] dimensionWords = new long[IdBitmap.CHUNK_WORDS];
+            boolean matched = false;
+            for (IdBitmap bitmap : dimension) {
+                matched |= bitmap.orChunkInto(key, dimensionWords);
+            }
+            if (!matched) {
+                return EMPTY;
+            }
+            if (words == null) {
+                words = dimensionWords;
+            } else {
+                for (int i = 0; i < words.length; i++) {
+                    words[i] &= dimensionWords[i];
+                }
+            }
+        }
+        return IdBitmap.chunkIds(key, words, afterId);
+    }
+
+    private static List<RankedFilm> top(long[] filmIds, LongToIntFunction likes, int limit) {
+        PriorityQueue<RankedFilm> top = new PriorityQueue<>(BY_POPULARITY.reversed());
+        for (long filmId : filmIds) {
+            int filmLikes = likes.applyAsInt(filmId);
+            // ids ascend, so a film that doesn't have more likes than the last of the top can't outrank it
+            if (top.size() == limit && filmLikes <= top.peek().likes()) {
+                continue;
+            }
+            top.add(new RankedFilm(filmId, filmLikes));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        return List.copyOf(top);
+    }
+
+    public record FilmAttributes(int releaseYear, Integer mpaId, int[] genreIds) {
+    }
+
+    private record RankedFilm(long filmId, int likes) {
+    }
+
+    public class Loader {
+        private final IdBitmap.Builder filmsBuilder = IdBitmap.builder();
+        private final Map<Integer, IdBitmap.Builder> genreBuilders = new HashMap<>();
+        private final Map<Integer, IdBitmap.Builder> mpaBuilders = new HashMap<>();
+        private final Map<Integer, IdBitmap.Builder> yearBuilders = new HashMap<>();
+
+        private Loader() {
+        }
+
+        public void add(long filmId, int releaseYear, Integer mpaId, Integer genreId) {
+            filmsBuilder.add(filmId);
+            yearBuilders.computeIfAbsent(releaseYear, year -> IdBitmap.builder()).add(filmId);
+            if (mpaId != null) {
+                mpaBuilders.computeIfAbsent(mpaId, mpa -> IdBitmap.builder()).add(filmId);
+            }
+            if (genreId != null) {
+                genreBuilders.computeIfAbsent(genreId, genre -> IdBitmap.builder()).add(filmId);
+            }
+        }
+
+        public void complete() {
+            synchronized (FilmFilterIndex.this) {
+                genreBuilders.forEach((genreId, builder) -> genres.put(genreId, builder.build()));
+                mpaBuilders.forEach((mpaId, builder) -> mpas.put(mpaId, builder.build()));
+                yearBuilders.forEach((year, builder) -> years.put(year, builder.build()));
+                films = filmsBuilder.build();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// a like locks only the map bin of its film, so likes of different films don't wait for each other;
+// the ranking is a concurrent skip list that readers walk without locking
+public class FilmPopularityIndex {
+    private static final Comparator<Entry> BY_POPULARITY = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+
+    private final boolean retainUnliked;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_POPULARITY);
+
+    public FilmPopularityIndex(boolean retainUnliked) {
+        this.retainUnliked = retainUnliked;
+    }
+
+    public void put(long filmId, int likes) {
+        entries.compute(filmId, (id, current) -> replace(current, id, likes));
+    }
+
+    public void adjust(long filmId, int delta) {
+        entries.compute(filmId, (id, current) ->
+                replace(current, id, Math.max(0, (current == null ? 0 : current.likes()) + delta)));
+    }
+
+    public int remove(long filmId) {
+        int[] likes = new int[1];
+        entries.computeIfPresent(filmId, (id, current) -> {
+            likes[0] = current.likes();
+            return replace(current, id, -1);
+        });
+        return likes[0];
+    }
+
+    public int getLikes(long filmId) {
+        Entry entry = entries.get(filmId);
+        return entry == null ? 0 : entry.likes();
+    }
+
+    // a film moving in the ranking is added at its new place before it leaves the old one,
+    // so a concurrent reader can meet it twice and keeps the place it meets first
+    public List<Long> getTop(long count) {
+        List<Long> filmIds = new ArrayList<>((int) Math.min(count, entries.size()));
+        Set<Long> seen = new HashSet<>();
+        Iterator<Entry> iterator = ranking.iterator();
+        while (filmIds.size() < count && iterator.hasNext()) {
+            long filmId = iterator.next().filmId();
+            if (seen.add(filmId)) {
+                filmIds.add(filmId);
+            }
+        }
+        return filmIds;
+    }
+
+    public void clear() {
+        entries.clear();
+        ranking.clear();
+    }
+
+    // called under the map lock of the film, a negative count removes the film
+    private Entry replace(Entry current, long filmId, int likes) {
+        Entry entry = likes > 0 || (likes == 0 && retainUnliked) ? new Entry(filmId, likes) : null;
+        if (entry != null) {
+            ranking.add(entry);
+        }
+        if (current != null && !current.equals(entry)) {
+            ranking.remove(current);
+        }
+        return entry;
+    }
+
+    private record Entry(long filmId, int likes) {
+    }
+}
@@ -1,25 +1,55 @@
 package ru.yandex.practicum.filmorate.repository.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmRepository {
     boolean checkFilmExists(Long filmId);
 
+    Set<Long> getExistingIds(Collection<Long> filmIds);
+
+    long getFilmCount();
+
     Film create(Film film);
 
-    Film get(Long filmId);
+    void createAll(List<Film> films);
+
+    Optional<Film> get(Long filmId);
 
     Collection<Film> getAll();
 
-    Film update(Film film);
+    Collection<Film> getPage(long afterId, int limit);
+
+    Collection<Film> find(FilmFilter filter, long afterId, int limit);
+
+    Collection<Film> findMostPopular(FilmFilter filter, int limit);
+
+    void streamAll(Consumer<Film> consumer);
 
-    void delete(Long filmId);
+    Optional<Film> update(Film film);
 
-    void addLike(Long filmId, Long userId);
+    boolean delete(Long filmId);
+
+    boolean addLike(Long filmId, Long userId);
 
     Collection<Film> getMostPopular(long count);
 
-    void removeLike(Long filmId, Long userId);
+    Collection<Film> getRecommendations(Long userId, int limit);
+
+    Collection<Film> search(String query, int limit);
+
+    boolean removeLike(Long filmId, Long userId);
+
+    int addLikes(Collection<FilmLike> likes);
+
+    int removeLikes(Collection<FilmLike> likes);
+
+    int writeLikes(Collection<FilmLike> added, Collection<FilmLike> removed);
 }
\ No newline at end of file
@@ -0,0 +1,425 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.SortedIdArrays;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static ru.yandex.practicum.filmorate.repository.SortedIdArrays.*;
+
+@Component
+public class FilmSearchIndex {
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MAX_WEIGHT = NAME_WEIGHT + DESCRIPTION_WEIGHT;
+    private static final int EXACT_MATCH_BOOST = 2;
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int MAX_PREFIX_TERMS = 32;
+    private static final int BINARY_SEARCH_RATIO = 16;
+    private static final Comparator<Source> BY_SCORE = Comparator.comparingInt(Source::score).reversed();
+
+    private final ConcurrentNavigableMap<String, long[][]> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, FilmTerms> filmTerms = new ConcurrentHashMap<>();
+
+    public synchronized FilmTerms put(long filmId, String name, String description) {
+        FilmTerms previous = remove(filmId);
+        add(filmId, analyze(name, description));
+        return previous;
+    }
+
+    public synchronized FilmTerms remove(long filmId) {
+        FilmTerms terms = filmTerms.remove(filmId);
+        if (terms == null) {
+            return null;
+        }
+        for (int i = 0; i < terms.terms().length; i++) {
+            long[][] updated = delete(postings.get(terms.terms()[i]), filmId, terms.weights()[i]);
+            if (updated == null) {
+                postings.remove(terms.terms()[i]);
+            } else {
+                postings.put(terms.terms()[i], updated);
+            }
+        }
+        return terms;
+    }
+
+    public synchronized void restore(long filmId, FilmTerms terms) {
+        remove(filmId);
+        if (terms != null) {
+            add(filmId, terms);
+        }
+    }
+
+    public synchronized Loader loader() {
+        postings.clear();
+        filmTerms.clear();
+        return new Loader(false);
+    }
+
+    // films new to the index are merged into every posting list once per batch instead of once per film
+    public Loader appender() {
+        return new Loader(true);
+    }
+
+    public long[] search(String query, int limit) {
+        List<String> tokens = tokenize(query).stream()
+                .distinct()
+                .limit(MAX_QUERY_TERMS)
+                .toList();
+        if (tokens.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<List<Source>> tokenSources = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            List<Source> sources = match(tokens.get(i), i == tokens.size() - 1);
+            if (sources.isEmpty()) {
+                return EMPTY;
+            }
+            tokenSources.add(sources);
+        }
+        if (tokenSources.size() == 1) {
+            return topOfSingleTerm(tokenSources.get(0), limit);
+        }
+        return topOfAllTerms(tokenSources, limit);
+    }
+
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                token.append(c == 'ё' ? 'е' : c);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private static FilmTerms analyze(String name, String description) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(name).forEach(token -> weights.put(token, NAME_WEIGHT));
+        tokenize(description).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT,
+                (current, weight) -> current == NAME_WEIGHT ? current + weight : current));
+
+        String[] terms = new String[weights.size()];
+        int[] termWeights = new int[weights.size()];
+        int index = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            terms[index] = entry.getKey();
+            termWeights[index++] = entry.getValue();
+        }
+        return new FilmTerms(terms, termWeights);
+    }
+
+    private void add(long filmId, FilmTerms terms) {
+        for (int i = 0; i < terms.terms().length; i++) {
+            postings.put(terms.terms()[i], insert(postings.get(terms.terms()[i]), filmId, terms.weights()[i]));
+        }
+        filmTerms.put(filmId, terms);
+    }
+
+    private List<Source> match(String token, boolean prefix) {
+        List<Source> sources = new ArrayList<>();
+        addSources(sources, postings.get(token), EXACT_MATCH_BOOST);
+
+        if (prefix) {
+            topPrefixed(token).forEach(prefixed -> addSources(sources, prefixed, 1));
+        }
+        sources.sort(BY_SCORE);
+        return sources;
+    }
+
+    // a short prefix can expand to thousands of terms, so only the MAX_PREFIX_TERMS terms with the most films are
+    // searched; films having only rarer terms of the prefix are not found until more letters are typed
+    private Collection<long[][]> topPrefixed(String token) {
+        Comparator<long[][]> bySize = Comparator.comparingLong(FilmSearchIndex::size);
+        PriorityQueue<long[][]> top = new PriorityQueue<>(MAX_PREFIX_TERMS, bySize);
+        for (long[][] prefixed : postings.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+            if (top.size() < MAX_PREFIX_TERMS) {
+                top.add(prefixed);
+            } else if (size(prefixed) > size(top.peek())) {
+                top.poll();
+                top.add(prefixed);
+            }
+        }
+        return top;
+    }
+
+    private static long size(long[][] termPostings) {
+        long size = 0;
+        for (long[] filmIds : termPostings) {
+            size += filmIds.length;
+        }
+        return size;
+    }
+
+    private static void addSources(List<Source> sources, long[][] termPostings, int boost) {
+        if (termPostings == null) {
+            return;
+        }
+        for (int weight = 1; weight <= MAX_WEIGHT; weight++) {
+            if (termPostings[weight].length > 0) {
+                sources.add(new Source(termPostings[weight], weight * boost));
+            }
+        }
+    }
+
+    private static long[] topOfSingleTerm(List<Source> sources, int limit) {
+        long[] result = new long[limit];
+        Set<Long> selected = new HashSet<>();
+        int count = 0;
+        for (int first = 0; first < sources.size() && count < limit; ) {
+            int last = first;
+            while (last < sources.size() && sources.get(last).score() == sources.get(first).score()) {
+                last++;
+            }
+
+            int[] positions = new int[last - first];
+            while (count < limit) {
+                long filmId = Long.MAX_VALUE;
+                for (int i = first; i < last; i++) {
+                    long[] filmIds = sources.get(i).filmIds();
+                    if (positions[i - first] < filmIds.length) {
+                        filmId = Math.min(filmId, filmIds[positions[i - first]]);
+                    }
+                }
+                if (filmId == Long.MAX_VALUE) {
+                    break;
+                }
+                for (int i = first; i < last; i++) {
+                    long[] filmIds = sources.get(i).filmIds();
+                    if (positions[i - first] < filmIds.length && filmIds[positions[i - first]] == filmId) {
+                        positions[i - first]++;
+                    }
+                }
+                if (selected.add(filmId)) {
+                    result[count++] = filmId;
+                }
+            }
+            first = last;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static long[] topOfAllTerms(List<List<Source>> tokenSources, int limit) {
+        List<List<Level>> tokenLevels = tokenSources.stream()
+                .sorted(Comparator.comparingLong(FilmSearchIndex::size))
+                .map(FilmSearchIndex::levels)
+                .toList();
+        int[] maxRemaining = new int[tokenLevels.size() + 1];
+        int[] minRemaining = new int[tokenLevels.size() + 1];
+        for (int i = tokenLevels.size() - 1; i >= 0; i--) {
+            List<Level> levels = tokenLevels.get(i);
+            maxRemaining[i] = maxRemaining[i + 1] + levels.get(0).score();
+            minRemaining[i] = minRemaining[i + 1] + levels.get(levels.size() - 1).score();
+        }
+
+        long[] result = new long[limit];
+        int count = 0;
+        Set<Long> selected = new HashSet<>();
+        for (int total = maxRemaining[0]; total >= minRemaining[0] && count < limit; total--) {
+            List<long[]> found = new ArrayList<>();
+            collect(tokenLevels, 0, total, null, maxRemaining, minRemaining, found);
+            for (long filmId : concatAndSort(found.toArray(long[][]::new))) {
+                if (count < limit && selected.add(filmId)) {
+                    result[count++] = filmId;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static void collect(List<List<Level>> tokenLevels, int token, int remaining, long[] candidates,
+                                int[] maxRemaining, int[] minRemaining, List<long[]> found) {
+        if (token == tokenLevels.size()) {
+            found.add(candidates);
+            return;
+        }
+        for (Level level : tokenLevels.get(token)) {
+            int rest = remaining - level.score();
+            if (rest < minRemaining[token + 1] || rest > maxRemaining[token + 1]) {
+                continue;
+            }
+            for (long[] levelFilmIds : level.filmIds()) {
+                long[] matched = candidates == null ? levelFilmIds : intersect(levelFilmIds, candidates);
+                if (matched.length > 0) {
+                    collect(tokenLevels, token + 1, rest, matched, maxRemaining, minRemaining, found);
+                }
+            }
+        }
+    }
+
+    private static long[] intersect(long[] first, long[] second) {
+        long[] shorter = first.length <= second.length ? first : second;
+        long[] longer = shorter == first ? second : first;
+        long[] matched = new long[shorter.length];
+        int count = 0;
+        if (longer.length / BINARY_SEARCH_RATIO > shorter.length) {
+            for (long filmId : shorter) {
+                if (contains(longer, filmId)) {
+                    matched[count++] = filmId;
+                }
+            }
+        } else {
+            for (int i = 0, j = 0; i < shorter.length && j < longer.length; ) {
+                if (shorter[i] < longer[j]) {
+                    i++;
+                } else if (longer[j] < shorter[i]) {
+                    j++;
+                } else {
+                    matched[count++] = shorter[i++];
+                }
+            }
+        }
+        return Arrays.copyOf(matched, count);
+    }
+
+    private static List<Level> levels(List<Source> sources) {
+        List<Level> levels = new ArrayList<>();
+        for (Source source : sources) {
+            if (levels.isEmpty() || levels.get(levels.size() - 1).score() != source.score()) {
+                levels.add(new Level(source.score(), new ArrayList<>()));
+            }
+            levels.get(levels.size() - 1).filmIds().add(source.filmIds());
+        }
+        return levels;
+    }
+
+    private static long size(List<Source> sources) {
+        long size = 0;
+        for (Source source : sources) {
+            size += source.filmIds().length;
+        }
+        return size;
+    }
+
+    private static long[][] insert(long[][] termPostings, long filmId, int weight) {
+        long[][] updated = termPostings == null ? emptyPostings() : termPostings.clone();
+        long[] filmIds = SortedIdArrays.insert(updated[weight], filmId);
+        if (filmIds != null) {
+            updated[weight] = filmIds;
+        }
+        return updated;
+    }
+
+    private static long[][] delete(long[][] termPostings, long filmId, int weight) {
+        if (termPostings == null) {
+            return null;
+        }
+        long[][] updated = termPostings.clone();
+        long[] filmIds = SortedIdArrays.delete(updated[weight], filmId);
+        if (filmIds != null) {
+            updated[weight] = filmIds;
+        }
+        for (long[] weightFilmIds : updated) {
+            if (weightFilmIds.length > 0) {
+                return updated;
+            }
+        }
+        return null;
+    }
+
+    private static long[][] merge(long[][] termPostings, long[][] addedPostings) {
+        long[][] merged = termPostings.clone();
+        for (int weight = 1; weight <= MAX_WEIGHT; weight++) {
+            if (addedPostings[weight].length > 0) {
+                merged[weight] = concatAndSort(new long[][]{termPostings[weight], addedPostings[weight]});
+            }
+        }
+        return merged;
+    }
+
+    private static long[][] emptyPostings() {
+        long[][] termPostings = new long[MAX_WEIGHT + 1][];
+        Arrays.fill(termPostings, EMPTY);
+        return termPostings;
+    }
+
+    public record FilmTerms(String[] terms, int[] weights) {
+    }
+
+    private record Source(long[] filmIds, int score) {
+    }
+
+    private record Level(int score, List<long[]> filmIds) {
+    }
+
+    public class Loader {
+        private final Map<String, PostingsBuilder> builders = new HashMap<>();
+        private final boolean append;
+
+        private Loader(boolean append) {
+            this.append = append;
+        }
+
+        public void add(long filmId, String name, String description) {
+            FilmTerms terms = analyze(name, description);
+            for (int i = 0; i < terms.terms().length; i++) {
+                PostingsBuilder builder = builders.computeIfAbsent(terms.terms()[i], PostingsBuilder::new);
+                terms.terms()[i] = builder.term;
+                builder.add(filmId, terms.weights()[i]);
+            }
+            filmTerms.put(filmId, terms);
+        }
+
+        public void complete() {
+            synchronized (FilmSearchIndex.this) {
+                for (PostingsBuilder builder : builders.values()) {
+                    if (append) {
+                        postings.merge(builder.term, builder.build(), FilmSearchIndex::merge);
+                    } else {
+                        postings.put(builder.term, builder.build());
+                    }
+                }
+            }
+            builders.clear();
+        }
+    }
+
+    private static class PostingsBuilder {
+        private final String term;
+        private final long[][] filmIds = new long[MAX_WEIGHT + 1][];
+        private final int[] counts = new int[MAX_WEIGHT + 1];
+
+        PostingsBuilder(String term) {
+            this.term = term;
+        }
+
+        void add(long filmId, int weight) {
+            if (filmIds[weight] == null) {
+                filmIds[weight] = new long[4];
+            } else if (counts[weight] == filmIds[weight].length) {
+                filmIds[weight] = Arrays.copyOf(filmIds[weight], counts[weight] * 2);
+            }
+            filmIds[weight][counts[weight]++] = filmId;
+        }
+
+        long[][] build() {
+            long[][] termPostings = emptyPostings();
+            for (int weight = 1; weight <= MAX_WEIGHT; weight++) {
+                if (counts[weight] > 0) {
+                    termPostings[weight] = Arrays.copyOf(filmIds[weight], counts[weight]);
+                }
+            }
+            return termPostings;
+        }
+    }
+}
@@ -1,73 +1,228 @@
 package ru.yandex.practicum.filmorate.repository.film;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
 public class InMemoryFilmRepository implements FilmRepository {
-    private final Map<Long, Film> films = new HashMap<>();
-    private Long idCounter = 0L;
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    private final LikeMatrixIndex likeMatrix = new LikeMatrixIndex();
+    private final FilmPopularityIndex popularityIndex = new FilmPopularityIndex(true);
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private final FilmFilterIndex filterIndex = new FilmFilterIndex();
+    private final AtomicLong idCounter = new AtomicLong();
+    // writes of one film hold its lock, so the indexes always describe the film that is in the map
+    private final Object[] filmLocks = new Object[LOCK_STRIPES];
+
+    public InMemoryFilmRepository() {
+        Arrays.setAll(filmLocks, i -> new Object());
+    }
 
     @Override
     public boolean checkFilmExists(Long filmId) {
         return films.containsKey(filmId);
     }
 
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> filmIds) {
+        return filmIds.stream()
+                .filter(films::containsKey)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public long getFilmCount() {
+        return films.size();
+    }
+
     @Override
     public Film create(Film film) {
         film.setId(getNextId());
-        films.put(film.getId(), film);
+        synchronized (lockFor(film.getId())) {
+            popularityIndex.put(film.getId(), 0);
+            films.put(film.getId(), film);
+            indexFilm(film);
+        }
         return film;
     }
 
     @Override
-    public Film get(Long id) {
-        return films.get(id);
+    public void createAll(List<Film> films) {
+        films.forEach(this::create);
+    }
+
+    @Override
+    public Optional<Film> get(Long id) {
+        return Optional.ofNullable(films.get(id));
     }
 
     @Override
     public Collection<Film> getAll() {
-        return films.values();
+        return List.copyOf(films.values());
     }
 
     @Override
-    public Film update(Film film) {
-        films.put(film.getId(), film);
-        return film;
+    public Collection<Film> getPage(long afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Collection<Film> find(FilmFilter filter, long afterId, int limit) {
+        return Arrays.stream(filterIndex.find(filter, afterId, limit))
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public Collection<Film> findMostPopular(FilmFilter filter, int limit) {
+        return Arrays.stream(filterIndex.findTop(filter, popularityIndex::getLikes, limit))
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        films.values().forEach(consumer);
+    }
+
+    @Override
+    public Optional<Film> update(Film film) {
+        synchronized (lockFor(film.getId())) {
+            if (films.replace(film.getId(), film) == null) {
+                return Optional.empty();
+            }
+            indexFilm(film);
+        }
+        return Optional.of(film);
     }
 
     @Override
-    public void delete(Long id) {
-        films.remove(id);
+    public boolean delete(Long id) {
+        synchronized (lockFor(id)) {
+            boolean deleted = films.remove(id) != null;
+            likeMatrix.removeFilm(id);
+            popularityIndex.remove(id);
+            searchIndex.remove(id);
+            filterIndex.remove(id);
+            return deleted;
+        }
     }
 
     @Override
-    public void addLike(Long filmId, Long userId) {
-        films.get(filmId).getLikes().add(userId);
+    public boolean addLike(Long filmId, Long userId) {
+        if (!films.containsKey(filmId)) {
+            throw new DataIntegrityViolationException("Film can't be found on adding like by id: " + filmId);
+        }
+        if (likeMatrix.add(userId, filmId)) {
+            updatePopularity(filmId, 1);
+            return true;
+        }
+        return false;
     }
 
     @Override
     public Collection<Film> getMostPopular(long count) {
-        return films.values().stream()
-                .sorted(new Comparator<Film>() {
-                    @Override
-                    public int compare(Film o1, Film o2) {
-                        return o1.getLikes().size() - o2.getLikes().size();
-                    }
-                }.reversed())
-                .limit(count)
+        return popularityIndex.getTop(count).stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public void removeLike(Long filmId, Long userId) {
-        films.get(filmId).getLikes().remove(userId);
+    public Collection<Film> getRecommendations(Long userId, int limit) {
+        return Arrays.stream(likeMatrix.getRecommendations(userId, limit))
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public Collection<Film> search(String query, int limit) {
+        return Arrays.stream(searchIndex.search(query, limit))
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        if (likeMatrix.remove(userId, filmId)) {
+            updatePopularity(filmId, -1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int addLikes(Collection<FilmLike> likes) {
+        int applied = 0;
+        for (FilmLike like : likes) {
+            if (addLike(like.getFilmId(), like.getUserId())) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public int removeLikes(Collection<FilmLike> likes) {
+        int applied = 0;
+        for (FilmLike like : likes) {
+            if (removeLike(like.getFilmId(), like.getUserId())) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public int writeLikes(Collection<FilmLike> added, Collection<FilmLike> removed) {
+        return removeLikes(removed) + addLikes(added);
+    }
+
+    public Set<Long> getLikes(Long filmId) {
+        return Arrays.stream(likeMatrix.getUsers(filmId))
+                .boxed()
+                .collect(Collectors.toSet());
+    }
+
+    private void updatePopularity(Long filmId, int delta) {
+        popularityIndex.adjust(filmId, delta);
+        if (!films.containsKey(filmId)) {
+            likeMatrix.removeFilm(filmId);
+            popularityIndex.remove(filmId);
+        }
+    }
+
+    private void indexFilm(Film film) {
+        searchIndex.put(film.getId(), film.getName(), film.getDescription());
+        filterIndex.put(film.getId(), film.getReleaseDate().getYear(),
+                film.getMpa() == null ? null : film.getMpa().getId(),
+                film.getGenres().stream().map(Genre::getId).toList());
+    }
+
+    private Object lockFor(long filmId) {
+        return filmLocks[Long.hashCode(filmId) & (LOCK_STRIPES - 1)];
     }
 
     private long getNextId() {
-        return ++idCounter;
+        return idCounter.incrementAndGet();
     }
 }
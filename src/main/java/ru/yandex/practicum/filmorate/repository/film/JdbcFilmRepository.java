@@ -1,82 +1,296 @@
 package ru.yandex.practicum.filmorate.repository.film;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Primary;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
-import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.config.CacheConfig;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.AdjacencyLoader;
+import ru.yandex.practicum.filmorate.repository.RollbackCompensation;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Repository
 @Primary
+@ConditionalOnProperty(name = "filmorate.sharding.enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 public class JdbcFilmRepository implements FilmRepository {
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private final NamedParameterJdbcOperations jdbc;
+    private final MpaRepository mpaRepository;
+    private final GenreRepository genreRepository;
+    private final LikeMatrixIndex likeMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final FilmFilterIndex filterIndex;
 
-    private static Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
+    private Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
         return Film.builder()
                 .id(resultSet.getLong("film_id"))
                 .name(resultSet.getString("name"))
                 .description(resultSet.getString("description"))
                 .releaseDate(LocalDate.parse(resultSet.getString("release_date")))
                 .duration(resultSet.getInt("duration"))
-                .mpa(new Mpa(resultSet.getInt("mpa_rating_id"), resultSet.getString("mpa_rating_name")))
+                .mpa(mapRowToMpa(resultSet))
                 .build();
     }
 
-    private static class MapOrderedResultSetToFilms implements ResultSetExtractor<Collection<Film>> {
+    private Mpa mapRowToMpa(ResultSet resultSet) throws SQLException {
+        int mpaId = resultSet.getInt("mpa_rating_id");
+        Mpa mpa = mpaRepository.get(mpaId);
+        return mpa == null ? new Mpa(mpaId, null) : mpa;
+    }
+
+    private Genre mapRowToGenre(int genreId) {
+        Genre genre = genreRepository.get(genreId);
+        return genre == null ? new Genre(genreId, null) : genre;
+    }
+
+    private class MapOrderedRowsToFilms implements RowCallbackHandler {
+        private final Consumer<Film> consumer;
+        private Film film;
+
+        MapOrderedRowsToFilms(Consumer<Film> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (film == null) {
+                film = mapRowToFilm(rs, rs.getRow());
+            } else if (!film.getId().equals(rs.getLong("film_id"))) {
+                consumer.accept(film);
+                film = mapRowToFilm(rs, rs.getRow());
+            }
+            int genreId = rs.getInt("genre_id");
+            if (!rs.wasNull())
+                film.getGenres().add(mapRowToGenre(genreId));
+        }
+
+        void complete() {
+            if (film != null) {
+                consumer.accept(film);
+                film = null;
+            }
+        }
+    }
+
+    private class MapOrderedResultSetToFilms implements ResultSetExtractor<Collection<Film>> {
         @Override
         public Collection<Film> extractData(ResultSet rs) throws SQLException, DataAccessException {
-            Collection<Film> films = new LinkedList<>();
+            Collection<Film> films = new ArrayList<>();
 
-            Film film = null;
+            MapOrderedRowsToFilms rowsToFilms = new MapOrderedRowsToFilms(films::add);
             while (rs.next()) {
-                if (film == null) {
-                    film = mapRowToFilm(rs, rs.getRow());
-                } else if (!film.getId().equals(rs.getLong("film_id"))) {
-                    films.add(film);
-                    film = mapRowToFilm(rs, rs.getRow());
-                }
-                Integer genreId = rs.getInt("genre_id");
-                if (!rs.wasNull())
-                    film.getGenres().add(
-                            new Genre(genreId, rs.getString("genre_name"))
-                    );
-            }
-            if (film != null) {
-                films.add(film);
+                rowsToFilms.processRow(rs);
             }
+            rowsToFilms.complete();
 
             return films;
         }
     }
 
+    protected Collection<Film> getAllById(long[] filmIds) {
+        if (filmIds.length == 0) {
+            return List.of();
+        }
+
+        String sqlQuery = "SELECT f.*, fg.\"genre_id\" " +
+                "FROM \"film\" AS f " +
+                "LEFT JOIN \"film_genre\" AS fg ON f.\"film_id\" = fg.\"film_id\" " +
+                "WHERE f.\"film_id\" IN (:film_ids) " +
+                "ORDER BY f.\"film_id\";";
+
+        Map<Long, Film> films = new HashMap<>();
+        for (int from = 0; from < filmIds.length; from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = Arrays.stream(filmIds, from, Math.min(from + MAX_IDS_PER_QUERY, filmIds.length))
+                    .boxed()
+                    .toList();
+            jdbc.query(sqlQuery, new MapSqlParameterSource("film_ids", chunk), new MapOrderedResultSetToFilms())
+                    .forEach(film -> films.put(film.getId(), film));
+        }
+        return Arrays.stream(filmIds)
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     private void setFilmGenres(Film film) {
         String sqlQuery = "DELETE FROM \"film_genre\" WHERE \"film_id\" = :film_id;";
         jdbc.update(sqlQuery, new MapSqlParameterSource("film_id", film.getId()));
 
-        sqlQuery = "INSERT INTO \"film_genre\" (\"film_id\", \"genre_id\") VALUES (:film_id, :genre_id);";
-        SqlParameterSource[] batchParams = SqlParameterSourceUtils.createBatch(
-                film.getGenres().stream().map(genre -> {
-                    Map<String, Object> param = new HashMap<>();
-                    param.put("film_id", film.getId());
-                    param.put("genre_id", genre.getId());
-                    return param;
-                }).toList()
-        );
-        jdbc.batchUpdate(sqlQuery, batchParams);
+        insertFilmGenres(List.of(film));
+    }
+
+    private void insertFilmGenres(List<Film> films) {
+        StringJoiner values = new StringJoiner(", ");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        int index = 0;
+        for (Film film : films) {
+            for (Genre genre : film.getGenres()) {
+                values.add("(:film_id_" + index + ", :genre_id_" + index + ")");
+                params.addValue("film_id_" + index, film.getId());
+                params.addValue("genre_id_" + index, genre.getId());
+                index++;
+            }
+        }
+        if (index == 0) {
+            return;
+        }
+
+        String sqlQuery = "INSERT INTO \"film_genre\" (\"film_id\", \"genre_id\") VALUES " + values + ";";
+        jdbc.update(sqlQuery, params);
+    }
+
+    private void updateLikesCount(Long filmId, int delta) {
+        String sqlQuery = "UPDATE \"film\" SET \"likes_count\" = \"likes_count\" + :delta WHERE \"film_id\" = :film_id;";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("film_id", filmId);
+        params.addValue("delta", delta);
+
+        jdbc.update(sqlQuery, params);
+    }
+
+    private int applyLikes(String sqlQuery, Collection<FilmLike> likes, int delta) {
+        List<FilmLike> orderedLikes = likes.stream()
+                .sorted(Comparator.comparing(FilmLike::getFilmId).thenComparing(FilmLike::getUserId))
+                .toList();
+        if (orderedLikes.isEmpty()) {
+            return 0;
+        }
+
+        SqlParameterSource[] batchParams = orderedLikes.stream()
+                .map(like -> new MapSqlParameterSource()
+                        .addValue("user_id", like.getUserId())
+                        .addValue("film_id", like.getFilmId()))
+                .toArray(SqlParameterSource[]::new);
+        int[] updateCounts = jdbc.batchUpdate(sqlQuery, batchParams);
+
+        Map<Long, Integer> likesCountDeltas = new TreeMap<>();
+        List<FilmLike> appliedLikes = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] > 0) {
+                FilmLike like = orderedLikes.get(i);
+                likesCountDeltas.merge(like.getFilmId(), delta, Integer::sum);
+                appliedLikes.add(like);
+            }
+        }
+
+        sqlQuery = "UPDATE \"film\" SET \"likes_count\" = \"likes_count\" + :delta WHERE \"film_id\" = :film_id;";
+        jdbc.batchUpdate(sqlQuery, likesCountDeltas.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("film_id", entry.getKey())
+                        .addValue("delta", entry.getValue()))
+                .toArray(SqlParameterSource[]::new));
+
+        updateLikeMatrix(appliedLikes, delta > 0);
+        RollbackCompensation.onRollback(() -> updateLikeMatrix(appliedLikes, delta < 0));
+
+        return likesCountDeltas.values().stream()
+                .mapToInt(Math::abs)
+                .sum();
+    }
+
+    private void updateLikeMatrix(Collection<FilmLike> likes, boolean added) {
+        for (FilmLike like : likes) {
+            if (added) {
+                likeMatrix.add(like.getUserId(), like.getFilmId());
+            } else {
+                likeMatrix.remove(like.getUserId(), like.getFilmId());
+            }
+        }
+    }
+
+    private void indexFilm(Film film) {
+        FilmSearchIndex.FilmTerms previous = searchIndex.put(film.getId(), film.getName(), film.getDescription());
+        FilmFilterIndex.FilmAttributes previousAttributes = filterIndex.put(film.getId(),
+                film.getReleaseDate().getYear(),
+                film.getMpa() == null ? null : film.getMpa().getId(),
+                film.getGenres().stream().map(Genre::getId).toList());
+        RollbackCompensation.onRollback(() -> {
+            searchIndex.restore(film.getId(), previous);
+            filterIndex.restore(film.getId(), previousAttributes);
+        });
+    }
+
+    private void indexNewFilms(List<Film> films) {
+        FilmSearchIndex.Loader appender = searchIndex.appender();
+        for (Film film : films) {
+            appender.add(film.getId(), film.getName(), film.getDescription());
+            filterIndex.put(film.getId(), film.getReleaseDate().getYear(),
+                    film.getMpa() == null ? null : film.getMpa().getId(),
+                    film.getGenres().stream().map(Genre::getId).toList());
+        }
+        appender.complete();
+        RollbackCompensation.onRollback(() -> films.forEach(film -> {
+            searchIndex.remove(film.getId());
+            filterIndex.remove(film.getId());
+        }));
+    }
+
+    private void queryForwardOnly(String sqlQuery, RowCallbackHandler rowCallbackHandler) {
+        jdbc.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, rowCallbackHandler);
+    }
+
+    @PostConstruct
+    public void loadSearchIndex() {
+        FilmSearchIndex.Loader loader = searchIndex.loader();
+        queryForwardOnly("SELECT \"film_id\", \"name\", \"description\" FROM \"film\" ORDER BY \"film_id\";",
+                rs -> loader.add(rs.getLong("film_id"), rs.getString("name"), rs.getString("description")));
+        loader.complete();
+    }
+
+    @PostConstruct
+    public void loadFilterIndex() {
+        FilmFilterIndex.Loader loader = filterIndex.loader();
+        queryForwardOnly("SELECT f.\"film_id\", f.\"release_date\", f.\"mpa_rating_id\", fg.\"genre_id\" " +
+                "FROM \"film\" AS f " +
+                "LEFT JOIN \"film_genre\" AS fg ON f.\"film_id\" = fg.\"film_id\" " +
+                "ORDER BY f.\"film_id\";", rs -> loader.add(rs.getLong("film_id"),
+                LocalDate.parse(rs.getString("release_date")).getYear(),
+                rs.getObject("mpa_rating_id", Integer.class),
+                rs.getObject("genre_id", Integer.class)));
+        loader.complete();
+    }
+
+    @PostConstruct
+    public void loadLikeMatrix() {
+        likeMatrix.clear();
+        AdjacencyLoader.load(jdbc, "SELECT \"user_id\", \"film_id\" FROM \"user_film_like\" " +
+                "ORDER BY \"user_id\", \"film_id\";", likeMatrix::putUserFilms);
+        AdjacencyLoader.load(jdbc, "SELECT \"film_id\", \"user_id\" FROM \"user_film_like\" " +
+                "ORDER BY \"film_id\", \"user_id\";", likeMatrix::putFilmUsers);
     }
 
     @Override
@@ -87,6 +301,23 @@ public class JdbcFilmRepository implements FilmRepository {
     }
 
     @Override
+    public Set<Long> getExistingIds(Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Set.of();
+        }
+
+        String sqlQuery = "SELECT \"film_id\" FROM \"film\" WHERE \"film_id\" IN (:film_ids);";
+
+        return new HashSet<>(jdbc.queryForList(sqlQuery, new MapSqlParameterSource("film_ids", filmIds), Long.class));
+    }
+
+    @Override
+    public long getFilmCount() {
+        return filterIndex.getFilmCount();
+    }
+
+    @Override
+    @Transactional
     public Film create(Film film) {
         String sqlQuery = "INSERT INTO \"film\" " +
                 "(\"name\", \"description\", \"release_date\", \"duration\", \"mpa_rating_id\") " +
@@ -97,103 +328,233 @@ public class JdbcFilmRepository implements FilmRepository {
         jdbc.update(sqlQuery, new MapSqlParameterSource(film.toMap()), keyHolder);
         film.setId(keyHolder.getKeyAs(Long.class));
 
-        setFilmGenres(film);
+        insertFilmGenres(List.of(film));
+        indexFilm(film);
 
         return film;
     }
 
     @Override
-    public Film get(Long filmId) {
-        String sqlQuery = "SELECT f.*, mpa.\"name\" AS mpa_rating_name, genre.\"genre_id\", genre.\"name\" AS genre_name " +
-                "FROM \"film\" AS f LEFT JOIN \"mpa_rating\" AS mpa ON f.\"mpa_rating_id\" = mpa.\"mpa_rating_id\" " +
+    @Transactional
+    public void createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+
+        StringJoiner values = new StringJoiner(", ");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        for (int i = 0; i < films.size(); i++) {
+            values.add("(:name_" + i + ", :description_" + i + ", :release_date_" + i + ", :duration_" + i +
+                    ", :mpa_rating_id_" + i + ")");
+            final int index = i;
+            films.get(i).toMap().forEach((key, value) -> params.addValue(key + "_" + index, value));
+        }
+        String sqlQuery = "INSERT INTO \"film\" " +
+                "(\"name\", \"description\", \"release_date\", \"duration\", \"mpa_rating_id\") " +
+                "VALUES " + values + ";";
+
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbc.update(sqlQuery, params, keyHolder, new String[]{"film_id"});
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).get("film_id")).longValue());
+        }
+
+        insertFilmGenres(films);
+        indexNewFilms(films);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.FILMS, key = "#filmId", unless = "#result == null")
+    public Optional<Film> get(Long filmId) {
+        String sqlQuery = "SELECT f.*, fg.\"genre_id\" " +
+                "FROM \"film\" AS f " +
                 "LEFT JOIN \"film_genre\" AS fg ON f.\"film_id\" = fg.\"film_id\" " +
-                "LEFT JOIN \"genre\" AS genre ON fg.\"genre_id\" = genre.\"genre_id\" " +
                 "WHERE f.\"film_id\" = :film_id;";
 
-        return jdbc.query(sqlQuery, new MapSqlParameterSource("film_id", filmId), new ResultSetExtractor<Film>() {
-            @Override
-            public Film extractData(ResultSet rs) throws SQLException, DataAccessException {
-                Film film = null;
-                while (rs.next()) {
-                    if (film == null) {
-                        film = mapRowToFilm(rs, rs.getRow());
-                    }
-                    Integer genreId = rs.getInt("genre_id");
-                    if (!rs.wasNull())
-                        film.getGenres().add(
-                                new Genre(genreId, rs.getString("genre_name"))
-                        );
-                }
-                return film;
-            }
-        });
+        return jdbc.query(sqlQuery, new MapSqlParameterSource("film_id", filmId), new MapOrderedResultSetToFilms())
+                .stream()
+                .findFirst();
     }
 
     @Override
     public Collection<Film> getAll() {
-        String sqlQuery = "SELECT f.*, mpa.\"name\" AS mpa_rating_name, genre.\"genre_id\", genre.\"name\" AS genre_name " +
-                "FROM \"film\" AS f LEFT JOIN \"mpa_rating\" AS mpa ON f.\"mpa_rating_id\" = mpa.\"mpa_rating_id\" " +
+        String sqlQuery = "SELECT f.*, fg.\"genre_id\" " +
+                "FROM \"film\" AS f " +
                 "LEFT JOIN \"film_genre\" AS fg ON f.\"film_id\" = fg.\"film_id\" " +
-                "LEFT JOIN \"genre\" AS genre ON fg.\"genre_id\" = genre.\"genre_id\" " +
                 "ORDER BY f.\"film_id\";";
 
         return jdbc.query(sqlQuery, new MapOrderedResultSetToFilms());
     }
 
     @Override
-    public Film update(Film film) {
-        String sqlQuery = "UPDATE \"film\" SET \"name\" = :name, \"description\" = :name, " +
+    public void streamAll(Consumer<Film> consumer) {
+        String sqlQuery = "SELECT f.*, fg.\"genre_id\" " +
+                "FROM \"film\" AS f " +
+                "LEFT JOIN \"film_genre\" AS fg ON f.\"film_id\" = fg.\"film_id\" " +
+                "ORDER BY f.\"film_id\";";
+
+        MapOrderedRowsToFilms rowsToFilms = new MapOrderedRowsToFilms(consumer);
+        queryForwardOnly(sqlQuery, rowsToFilms);
+        rowsToFilms.complete();
+    }
+
+    @Override
+    public Collection<Film> getPage(long afterId, int limit) {
+        String sqlQuery = "SELECT f.*, fg.\"genre_id\" " +
+                "FROM (SELECT * FROM \"film\" WHERE \"film_id\" > :after_id ORDER BY \"film_id\" LIMIT :limit) AS f " +
+                "LEFT JOIN \"film_genre\" AS fg ON f.\"film_id\" = fg.\"film_id\" " +
+                "ORDER BY f.\"film_id\";";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("after_id", afterId);
+        params.addValue("limit", limit);
+
+        return jdbc.query(sqlQuery, params, new MapOrderedResultSetToFilms());
+    }
+
+    @Override
+    public Collection<Film> find(FilmFilter filter, long afterId, int limit) {
+        return getAllById(filterIndex.find(filter, afterId, limit));
+    }
+
+    @Override
+    public Collection<Film> findMostPopular(FilmFilter filter, int limit) {
+        // the like matrix holds the same likes as likes_count and is updated by the same writes
+        return getAllById(filterIndex.findTop(filter, likeMatrix::getLikeCount, limit));
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, key = "#film.id")
+    public Optional<Film> update(Film film) {
+        String sqlQuery = "UPDATE \"film\" SET \"name\" = :name, \"description\" = :description, " +
                 "\"release_date\" = :release_date, \"duration\" = :duration, \"mpa_rating_id\" = :mpa_rating_id " +
                 "WHERE \"film_id\" = :film_id;";
 
-        jdbc.update(sqlQuery, new MapSqlParameterSource(film.toMap()));
+        if (jdbc.update(sqlQuery, new MapSqlParameterSource(film.toMap())) == 0) {
+            return Optional.empty();
+        }
 
         setFilmGenres(film);
+        indexFilm(film);
 
-        return film;
+        return Optional.of(film);
     }
 
     @Override
-    public void delete(Long filmId) {
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, key = "#filmId")
+    public boolean delete(Long filmId) {
         String sqlQuery = "DELETE FROM \"film\" WHERE \"film_id\" = :film_id;";
-        jdbc.update(sqlQuery, new MapSqlParameterSource("film_id", filmId));
+        if (jdbc.update(sqlQuery, new MapSqlParameterSource("film_id", filmId)) == 0) {
+            return false;
+        }
+
+        long[] userIds = likeMatrix.removeFilm(filmId);
+        FilmSearchIndex.FilmTerms terms = searchIndex.remove(filmId);
+        FilmFilterIndex.FilmAttributes attributes = filterIndex.remove(filmId);
+        RollbackCompensation.onRollback(() -> {
+            for (long userId : userIds) {
+                likeMatrix.add(userId, filmId);
+            }
+            searchIndex.restore(filmId, terms);
+            filterIndex.restore(filmId, attributes);
+        });
+        return true;
     }
 
     @Override
-    public void addLike(Long filmId, Long userId) {
-        String sqlQuery = "MERGE INTO \"user_film_like\" (\"user_id\", \"film_id\") VALUES (:user_id, :film_id);";
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, key = "#filmId")
+    public boolean addLike(Long filmId, Long userId) {
+        String sqlQuery = "INSERT INTO \"user_film_like\" (\"user_id\", \"film_id\") " +
+                "SELECT :user_id, :film_id WHERE NOT EXISTS (SELECT 1 FROM \"user_film_like\" " +
+                "WHERE \"user_id\" = :user_id AND \"film_id\" = :film_id);";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("user_id", userId);
         params.addValue("film_id", filmId);
 
-        jdbc.update(sqlQuery, params);
+        try {
+            if (jdbc.update(sqlQuery, params) > 0) {
+                updateLikesCount(filmId, 1);
+                likeMatrix.add(userId, filmId);
+                RollbackCompensation.onRollback(() -> likeMatrix.remove(userId, filmId));
+                return true;
+            }
+        } catch (DuplicateKeyException e) {
+            // a concurrent request has just added the same like
+        }
+        return false;
     }
 
     @Override
     public Collection<Film> getMostPopular(long count) {
-        String sqlQuery = "SELECT f.*, mpa.\"name\" AS mpa_rating_name, genre.\"genre_id\", " +
-                "genre.\"name\" AS genre_name FROM " +
-                "(SELECT \"film_id\", COUNT(*) AS likesCount FROM \"user_film_like\" " +
-                "GROUP BY \"film_id\" ORDER BY likesCount DESC LIMIT :count) AS p " +
-                "JOIN \"film\" AS f ON p.\"film_id\" = f.\"film_id\" " +
-                "LEFT JOIN \"mpa_rating\" AS mpa ON f.\"mpa_rating_id\" = mpa.\"mpa_rating_id\" " +
+        String sqlQuery = "SELECT f.*, fg.\"genre_id\" FROM " +
+                "(SELECT * FROM \"film\" WHERE \"likes_count\" > 0 " +
+                "ORDER BY \"likes_count\" DESC, \"film_id\" LIMIT :count) AS f " +
                 "LEFT JOIN \"film_genre\" AS fg ON f.\"film_id\" = fg.\"film_id\" " +
-                "LEFT JOIN \"genre\" AS genre ON fg.\"genre_id\" = genre.\"genre_id\" " +
-                "ORDER BY p.likesCount DESC, f.\"film_id\";";
+                "ORDER BY f.\"likes_count\" DESC, f.\"film_id\";";
 
         return jdbc.query(sqlQuery, new MapSqlParameterSource("count", count),
                 new MapOrderedResultSetToFilms());
     }
 
     @Override
-    public void removeLike(Long filmId, Long userId) {
+    public Collection<Film> getRecommendations(Long userId, int limit) {
+        return getAllById(likeMatrix.getRecommendations(userId, limit));
+    }
+
+    @Override
+    public Collection<Film> search(String query, int limit) {
+        return getAllById(searchIndex.search(query, limit));
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, key = "#filmId")
+    public boolean removeLike(Long filmId, Long userId) {
         String sqlQuery = "DELETE FROM \"user_film_like\" WHERE \"user_id\" = :user_id AND \"film_id\" = :film_id;";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("user_id", userId);
         params.addValue("film_id", filmId);
 
-        jdbc.update(sqlQuery, params);
+        if (jdbc.update(sqlQuery, params) > 0) {
+            updateLikesCount(filmId, -1);
+            likeMatrix.remove(userId, filmId);
+            RollbackCompensation.onRollback(() -> likeMatrix.add(userId, filmId));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    public int addLikes(Collection<FilmLike> likes) {
+        String sqlQuery = "INSERT INTO \"user_film_like\" (\"user_id\", \"film_id\") " +
+                "SELECT :user_id, :film_id WHERE NOT EXISTS (SELECT 1 FROM \"user_film_like\" " +
+                "WHERE \"user_id\" = :user_id AND \"film_id\" = :film_id);";
+
+        return applyLikes(sqlQuery, likes, 1);
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    public int removeLikes(Collection<FilmLike> likes) {
+        String sqlQuery = "DELETE FROM \"user_film_like\" WHERE \"user_id\" = :user_id AND \"film_id\" = :film_id;";
+
+        return applyLikes(sqlQuery, likes, -1);
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    public int writeLikes(Collection<FilmLike> added, Collection<FilmLike> removed) {
+        return removeLikes(removed) + addLikes(added);
     }
-}
+}
\ No newline at end of file
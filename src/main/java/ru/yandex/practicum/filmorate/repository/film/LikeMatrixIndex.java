@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.yandex.practicum.filmorate.repository.SortedIdArrays.*;
+
+@Component
+public class LikeMatrixIndex {
+    private static final int MAX_FAN_OUT = 200;
+    private static final int MAX_NEIGHBOURS = 50;
+
+    private final Map<Long, long[]> userFilms = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> filmUsers = new ConcurrentHashMap<>();
+
+    public synchronized boolean add(long userId, long filmId) {
+        long[] updatedFilms = insert(userFilms.getOrDefault(userId, EMPTY), filmId);
+        if (updatedFilms == null) {
+            return false;
+        }
+        userFilms.put(userId, updatedFilms);
+        put(filmUsers, filmId, insert(filmUsers.getOrDefault(filmId, EMPTY), userId));
+        return true;
+    }
+
+    public synchronized boolean remove(long userId, long filmId) {
+        long[] updatedFilms = delete(userFilms.getOrDefault(userId, EMPTY), filmId);
+        if (updatedFilms == null) {
+            return false;
+        }
+        put(userFilms, userId, updatedFilms);
+        put(filmUsers, filmId, delete(filmUsers.getOrDefault(filmId, EMPTY), userId));
+        return true;
+    }
+
+    public synchronized long[] removeFilm(long filmId) {
+        long[] userIds = filmUsers.getOrDefault(filmId, EMPTY);
+        for (long userId : userIds) {
+            put(userFilms, userId, delete(userFilms.getOrDefault(userId, EMPTY), filmId));
+        }
+        filmUsers.remove(filmId);
+        return userIds;
+    }
+
+    public synchronized long[] removeUser(long userId) {
+        long[] filmIds = userFilms.getOrDefault(userId, EMPTY);
+        for (long filmId : filmIds) {
+            put(filmUsers, filmId, delete(filmUsers.getOrDefault(filmId, EMPTY), userId));
+        }
+        userFilms.remove(userId);
+        return filmIds;
+    }
+
+    public synchronized void putUserFilms(long userId, long[] sortedFilmIds) {
+        put(userFilms, userId, sortedFilmIds);
+    }
+
+    public synchronized void putFilmUsers(long filmId, long[] sortedUserIds) {
+        put(filmUsers, filmId, sortedUserIds);
+    }
+
+    public long[] getFilms(long userId) {
+        return userFilms.getOrDefault(userId, EMPTY).clone();
+    }
+
+    public long[] getUsers(long filmId) {
+        return filmUsers.getOrDefault(filmId, EMPTY).clone();
+    }
+
+    public int getLikeCount(long filmId) {
+        return filmUsers.getOrDefault(filmId, EMPTY).length;
+    }
+
+    public long[] getRecommendations(long userId, int limit) {
+        long[] likedFilms = userFilms.getOrDefault(userId, EMPTY);
+        long[] sampledFilms = sample(likedFilms, MAX_FAN_OUT);
+
+        long[][] coLikers = new long[sampledFilms.length][];
+        for (int i = 0; i < sampledFilms.length; i++) {
+            coLikers[i] = sample(filmUsers.getOrDefault(sampledFilms[i], EMPTY), MAX_FAN_OUT);
+        }
+        long[] candidates = concatAndSort(coLikers);
+
+        long[] neighbourIds = new long[candidates.length];
+        int[] overlaps = new int[candidates.length];
+        int neighbourCount = 0;
+        for (int i = 0; i < candidates.length; ) {
+            int j = i;
+            while (j < candidates.length && candidates[j] == candidates[i]) {
+                j++;
+            }
+            if (candidates[i] != userId) {
+                neighbourIds[neighbourCount] = candidates[i];
+                overlaps[neighbourCount] = j - i;
+                neighbourCount++;
+            }
+            i = j;
+        }
+        long[] topNeighbours = topByScore(neighbourIds, overlaps, neighbourCount, sampledFilms.length, MAX_NEIGHBOURS);
+
+        Map<Long, Integer> filmScores = new HashMap<>();
+        int maxScore = 0;
+        for (long neighbourId : topNeighbours) {
+            int overlap = overlaps[Arrays.binarySearch(neighbourIds, 0, neighbourCount, neighbourId)];
+            for (long filmId : sample(userFilms.getOrDefault(neighbourId, EMPTY), MAX_FAN_OUT)) {
+                if (!contains(likedFilms, filmId)) {
+                    maxScore = Math.max(maxScore, filmScores.merge(filmId, overlap, Integer::sum));
+                }
+            }
+        }
+
+        long[] filmIds = filmScores.keySet().stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        int[] scores = new int[filmIds.length];
+        for (int i = 0; i < filmIds.length; i++) {
+            scores[i] = filmScores.get(filmIds[i]);
+        }
+        return topByScore(filmIds, scores, filmIds.length, maxScore, limit);
+    }
+
+    public synchronized void clear() {
+        userFilms.clear();
+        filmUsers.clear();
+    }
+}
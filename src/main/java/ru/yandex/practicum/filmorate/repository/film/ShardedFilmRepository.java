@@ -0,0 +1,308 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.config.CacheConfig;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.repository.UserShards;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+// films stay in the main database, likes live on the shard of the user who gave them
+@Repository
+@Primary
+@ConditionalOnProperty(name = "filmorate.sharding.enabled", havingValue = "true")
+public class ShardedFilmRepository extends JdbcFilmRepository {
+    private final LikeMatrixIndex likeMatrix;
+    private final UserShards shards;
+
+    public ShardedFilmRepository(NamedParameterJdbcOperations jdbc, MpaRepository mpaRepository,
+                                 GenreRepository genreRepository, LikeMatrixIndex likeMatrix,
+                                 FilmSearchIndex searchIndex, FilmFilterIndex filterIndex, UserShards shards) {
+        super(jdbc, mpaRepository, genreRepository, likeMatrix, searchIndex, filterIndex);
+        this.likeMatrix = likeMatrix;
+        this.shards = shards;
+    }
+
+    // locks the rows of the users first, so their likes and counts can't change under a concurrent user delete
+    private static List<Long> lockUsers(NamedParameterJdbcOperations jdbc, Collection<Long> userIds) {
+        String sqlQuery = "SELECT \"user_id\" FROM \"user\" WHERE \"user_id\" IN (:user_ids) " +
+                "ORDER BY \"user_id\" FOR UPDATE;";
+
+        return jdbc.queryForList(sqlQuery, new MapSqlParameterSource("user_ids", userIds), Long.class);
+    }
+
+    private static void updateLikeCounts(NamedParameterJdbcOperations jdbc, Map<Long, Long> deltas) {
+        String sqlQuery = "MERGE INTO \"film_like_count\" AS c " +
+                "USING (VALUES (CAST(:film_id AS BIGINT), CAST(:delta AS BIGINT))) AS d (\"film_id\", \"delta\") " +
+                "ON c.\"film_id\" = d.\"film_id\" " +
+                "WHEN MATCHED THEN UPDATE SET \"likes\" = c.\"likes\" + d.\"delta\" " +
+                "WHEN NOT MATCHED THEN INSERT (\"film_id\", \"likes\") VALUES (d.\"film_id\", d.\"delta\");";
+
+        jdbc.batchUpdate(sqlQuery, new TreeMap<>(deltas).entrySet().stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("film_id", delta.getKey())
+                        .addValue("delta", delta.getValue()))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    // the likes of one shard are removed and added in one transaction of that shard
+    private int applyLikes(Collection<FilmLike> added, Collection<FilmLike> removed) {
+        String addQuery = "INSERT INTO \"user_film_like\" (\"user_id\", \"film_id\") " +
+                "SELECT :user_id, :film_id WHERE NOT EXISTS (SELECT 1 FROM \"user_film_like\" " +
+                "WHERE \"user_id\" = :user_id AND \"film_id\" = :film_id);";
+        String removeQuery = "DELETE FROM \"user_film_like\" WHERE \"user_id\" = :user_id AND \"film_id\" = :film_id;";
+
+        Map<Integer, List<FilmLike>> addedByShard = shards.groupByShard(added, FilmLike::getUserId);
+        Map<Integer, List<FilmLike>> removedByShard = shards.groupByShard(removed, FilmLike::getUserId);
+        List<AppliedLikes> appliedLikes = shards.scatter((shard, jdbc) -> {
+            List<FilmLike> shardAdded = addedByShard.getOrDefault(shard, List.of());
+            List<FilmLike> shardRemoved = removedByShard.getOrDefault(shard, List.of());
+            if (shardAdded.isEmpty() && shardRemoved.isEmpty()) {
+                return new AppliedLikes(List.of(), List.of());
+            }
+
+            List<Long> userIds = new ArrayList<>();
+            shardAdded.forEach(like -> userIds.add(like.getUserId()));
+            shardRemoved.forEach(like -> userIds.add(like.getUserId()));
+            return shards.inTransaction(shard, () -> {
+                lockUsers(jdbc, userIds.stream().distinct().toList());
+                Map<Long, Long> deltas = new HashMap<>();
+                List<FilmLike> shardAppliedRemoved = applyBatch(jdbc, removeQuery, shardRemoved, deltas, -1L);
+                List<FilmLike> shardAppliedAdded = applyBatch(jdbc, addQuery, shardAdded, deltas, 1L);
+                updateLikeCounts(jdbc, deltas);
+                return new AppliedLikes(shardAppliedAdded, shardAppliedRemoved);
+            });
+        });
+
+        int applied = 0;
+        for (AppliedLikes shardLikes : appliedLikes) {
+            shardLikes.removed().forEach(like -> likeMatrix.remove(like.getUserId(), like.getFilmId()));
+            shardLikes.added().forEach(like -> likeMatrix.add(like.getUserId(), like.getFilmId()));
+            applied += shardLikes.added().size() + shardLikes.removed().size();
+        }
+        return applied;
+    }
+
+    private static List<FilmLike> applyBatch(NamedParameterJdbcOperations jdbc, String sqlQuery,
+                                             List<FilmLike> likes, Map<Long, Long> deltas, long delta) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
+
+        List<FilmLike> orderedLikes = likes.stream()
+                .sorted(Comparator.comparing(FilmLike::getUserId).thenComparing(FilmLike::getFilmId))
+                .toList();
+        int[] updateCounts = jdbc.batchUpdate(sqlQuery, orderedLikes.stream()
+                .map(like -> new MapSqlParameterSource()
+                        .addValue("user_id", like.getUserId())
+                        .addValue("film_id", like.getFilmId()))
+                .toArray(SqlParameterSource[]::new));
+
+        List<FilmLike> appliedLikes = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] > 0) {
+                FilmLike like = orderedLikes.get(i);
+                appliedLikes.add(like);
+                deltas.merge(like.getFilmId(), delta, Long::sum);
+            }
+        }
+        return appliedLikes;
+    }
+
+    // a like written while its film was being deleted could miss the delete of its likes, so it is removed here;
+    // checking after the like is in the matrix means either this or the delete of the film sees it
+    private boolean removeOrphanLikes(Collection<Long> filmIds) {
+        Set<Long> deletedIds = new HashSet<>(filmIds);
+        deletedIds.removeAll(getExistingIds(filmIds));
+        if (deletedIds.isEmpty()) {
+            return false;
+        }
+
+        deletedIds.forEach(this::deleteFilmLikes);
+        return true;
+    }
+
+    private void deleteFilmLikes(long filmId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("film_id", filmId);
+        shards.scatter((shard, jdbc) -> shards.inTransaction(shard, () -> {
+            jdbc.update("DELETE FROM \"user_film_like\" WHERE \"film_id\" = :film_id;", params);
+            return jdbc.update("DELETE FROM \"film_like_count\" WHERE \"film_id\" = :film_id;", params);
+        }));
+        likeMatrix.removeFilm(filmId);
+    }
+
+    @Override
+    @PostConstruct
+    public void loadLikeMatrix() {
+        likeMatrix.clear();
+        shards.loadAdjacency("SELECT \"user_id\", \"film_id\" FROM \"user_film_like\" " +
+                "ORDER BY \"user_id\", \"film_id\";", likeMatrix::putUserFilms);
+        shards.loadAdjacency("SELECT \"film_id\", \"user_id\" FROM \"user_film_like\" " +
+                "ORDER BY \"film_id\", \"user_id\";", likeMatrix::putFilmUsers);
+    }
+
+    // the film is committed as deleted before its likes are removed from the shards, so a like added meanwhile
+    // either finds the film missing in removeOrphanLikes or is removed here
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, key = "#filmId")
+    public boolean delete(Long filmId) {
+        if (!super.delete(filmId)) {
+            return false;
+        }
+
+        deleteFilmLikes(filmId);
+        return true;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, key = "#filmId")
+    public boolean addLike(Long filmId, Long userId) {
+        // the film lives in another database, so there is no foreign key to check it
+        if (!checkFilmExists(filmId)) {
+            throw new DataIntegrityViolationException("Film with id " + filmId + " doesn't exist");
+        }
+
+        String sqlQuery = "INSERT INTO \"user_film_like\" (\"user_id\", \"film_id\") " +
+                "SELECT :user_id, :film_id WHERE NOT EXISTS (SELECT 1 FROM \"user_film_like\" " +
+                "WHERE \"user_id\" = :user_id AND \"film_id\" = :film_id);";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("user_id", userId);
+        params.addValue("film_id", filmId);
+
+        NamedParameterJdbcOperations jdbc = shards.forUser(userId);
+        try {
+            boolean added = shards.inTransaction(shards.shardOf(userId), () -> {
+                if (lockUsers(jdbc, List.of(userId)).isEmpty()) {
+                    throw new DataIntegrityViolationException("User with id " + userId + " doesn't exist");
+                }
+                if (jdbc.update(sqlQuery, params) == 0) {
+                    return false;
+                }
+                updateLikeCounts(jdbc, Map.of(filmId, 1L));
+                return true;
+            });
+            if (!added) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            // a concurrent request has just added the same like
+            return false;
+        }
+
+        likeMatrix.add(userId, filmId);
+        if (removeOrphanLikes(List.of(filmId))) {
+            throw new DataIntegrityViolationException("Film with id " + filmId + " doesn't exist");
+        }
+        return true;
+    }
+
+    // every shard keeps the like counts of its own users, they are read in parallel and merged here
+    @Override
+    public Collection<Film> getMostPopular(long count) {
+        String sqlQuery = "SELECT \"film_id\", \"likes\" FROM \"film_like_count\" WHERE \"likes\" > 0;";
+
+        Map<Long, Long> likes = new HashMap<>();
+        shards.scatter((shard, jdbc) -> {
+            Map<Long, Long> shardLikes = new HashMap<>();
+            jdbc.query(sqlQuery, (ResultSet rs) -> {
+                shardLikes.put(rs.getLong("film_id"), rs.getLong("likes"));
+            });
+            return shardLikes;
+        }).forEach(shardLikes -> shardLikes.forEach((filmId, filmLikes) -> likes.merge(filmId, filmLikes, Long::sum)));
+
+        Comparator<Map.Entry<Long, Long>> popularity = Map.Entry.<Long, Long>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Long>comparingByKey().reversed());
+        int limit = (int) Math.min(count, likes.size());
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        // the heap keeps only the top films, its head is the least popular of them
+        PriorityQueue<Map.Entry<Long, Long>> top = new PriorityQueue<>(limit, popularity);
+        for (Map.Entry<Long, Long> entry : likes.entrySet()) {
+            if (top.size() < limit) {
+                top.add(entry);
+            } else if (popularity.compare(entry, top.peek()) > 0) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+        return getAllById(top.stream()
+                .sorted(popularity.reversed())
+                .mapToLong(Map.Entry::getKey)
+                .toArray());
+    }
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, key = "#filmId")
+    public boolean removeLike(Long filmId, Long userId) {
+        String sqlQuery = "DELETE FROM \"user_film_like\" WHERE \"user_id\" = :user_id AND \"film_id\" = :film_id;";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("user_id", userId);
+        params.addValue("film_id", filmId);
+
+        NamedParameterJdbcOperations jdbc = shards.forUser(userId);
+        boolean removed = shards.inTransaction(shards.shardOf(userId), () -> {
+            lockUsers(jdbc, List.of(userId));
+            if (jdbc.update(sqlQuery, params) == 0) {
+                return false;
+            }
+            updateLikeCounts(jdbc, Map.of(filmId, -1L));
+            return true;
+        });
+        if (removed) {
+            likeMatrix.remove(userId, filmId);
+        }
+        return removed;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    public int addLikes(Collection<FilmLike> likes) {
+        return writeLikes(likes, List.of());
+    }
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    public int removeLikes(Collection<FilmLike> likes) {
+        return applyLikes(List.of(), likes);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    public int writeLikes(Collection<FilmLike> added, Collection<FilmLike> removed) {
+        int applied = applyLikes(added, removed);
+        removeOrphanLikes(added.stream().map(FilmLike::getFilmId).distinct().toList());
+        return applied;
+    }
+
+    private record AppliedLikes(List<FilmLike> added, List<FilmLike> removed) {
+    }
+}
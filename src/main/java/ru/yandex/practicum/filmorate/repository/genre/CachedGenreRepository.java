@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.repository.genre;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.config.CacheConfig;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.DataVersions;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Repository
+@Primary
+@RequiredArgsConstructor
+public class CachedGenreRepository implements GenreRepository {
+    private final JdbcGenreRepository jdbcGenreRepository;
+    private final DataVersions dataVersions;
+    private volatile Map<Integer, Genre> genres = Map.of();
+
+    @PostConstruct
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    public void refresh() {
+        Map<Integer, Genre> loadedGenres = new LinkedHashMap<>();
+        jdbcGenreRepository.getAll().forEach(genre -> loadedGenres.put(genre.getId(), genre));
+        genres = Collections.unmodifiableMap(loadedGenres);
+        dataVersions.referenceChanged();
+        log.info("Genres cache is loaded with {} genres", loadedGenres.size());
+    }
+
+    @Override
+    public boolean checkGenreExists(Integer genreId) {
+        return genres.containsKey(genreId);
+    }
+
+    @Override
+    public boolean checkGenresExist(List<Integer> genreIds) {
+        return genres.keySet().containsAll(genreIds);
+    }
+
+    @Override
+    public Genre get(Integer genreId) {
+        return genres.get(genreId);
+    }
+
+    @Override
+    public Collection<Genre> getAll() {
+        return genres.values();
+    }
+}
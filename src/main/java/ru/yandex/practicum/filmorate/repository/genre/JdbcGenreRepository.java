@@ -1,7 +1,6 @@
 package ru.yandex.practicum.filmorate.repository.genre;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.stereotype.Repository;
@@ -13,7 +12,6 @@ import java.util.Collection;
 import java.util.List;
 
 @Repository
-@Primary
 @RequiredArgsConstructor
 public class JdbcGenreRepository implements GenreRepository {
     private final NamedParameterJdbcOperations jdbc;
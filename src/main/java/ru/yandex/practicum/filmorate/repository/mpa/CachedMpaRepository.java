@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.repository.mpa;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.config.CacheConfig;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.DataVersions;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Slf4j
+@Repository
+@Primary
+@RequiredArgsConstructor
+public class CachedMpaRepository implements MpaRepository {
+    private final JdbcMpaRepository jdbcMpaRepository;
+    private final DataVersions dataVersions;
+    private volatile Map<Integer, Mpa> mpaRatings = Map.of();
+
+    @PostConstruct
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    public void refresh() {
+        Map<Integer, Mpa> loadedMpaRatings = new LinkedHashMap<>();
+        jdbcMpaRepository.getAll().forEach(mpa -> loadedMpaRatings.put(mpa.getId(), mpa));
+        mpaRatings = Collections.unmodifiableMap(loadedMpaRatings);
+        dataVersions.referenceChanged();
+        log.info("Mpa ratings cache is loaded with {} ratings", loadedMpaRatings.size());
+    }
+
+    @Override
+    public boolean checkMpaExists(Integer mpaId) {
+        return mpaRatings.containsKey(mpaId);
+    }
+
+    @Override
+    public Mpa get(Integer mpaId) {
+        return mpaRatings.get(mpaId);
+    }
+
+    @Override
+    public Collection<Mpa> getAll() {
+        return mpaRatings.values();
+    }
+}
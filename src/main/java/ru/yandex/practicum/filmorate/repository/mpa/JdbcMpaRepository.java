@@ -1,7 +1,6 @@
 package ru.yandex.practicum.filmorate.repository.mpa;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.stereotype.Repository;
@@ -12,7 +11,6 @@ import java.sql.SQLException;
 import java.util.Collection;
 
 @Repository
-@Primary
 @RequiredArgsConstructor
 public class JdbcMpaRepository implements MpaRepository {
     private final NamedParameterJdbcOperations jdbc;
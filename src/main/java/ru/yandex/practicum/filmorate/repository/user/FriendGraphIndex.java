@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.yandex.practicum.filmorate.repository.SortedIdArrays.*;
+
+public class FriendGraphIndex {
+    private static final int GALLOPING_RATIO = 32;
+    private static final int MAX_FAN_OUT = 200;
+    private static final int MAX_CACHED_SUGGESTIONS = 100;
+    private static final int SUGGESTIONS_CACHE_SIZE = 100_000;
+
+    private final Map<Long, long[]> friends = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> followers = new ConcurrentHashMap<>();
+    private final Cache<Long, long[]> suggestions = Caffeine.newBuilder()
+            .maximumSize(SUGGESTIONS_CACHE_SIZE)
+            .build();
+
+    public synchronized boolean add(long userId, long friendId) {
+        long[] updatedFriends = insert(friends.getOrDefault(userId, EMPTY), friendId);
+        if (updatedFriends == null) {
+            return false;
+        }
+        friends.put(userId, updatedFriends);
+        put(followers, friendId, insert(followers.getOrDefault(friendId, EMPTY), userId));
+        invalidateSuggestions(userId);
+        return true;
+    }
+
+    public synchronized boolean remove(long userId, long friendId) {
+        long[] updatedFriends = delete(friends.getOrDefault(userId, EMPTY), friendId);
+        if (updatedFriends == null) {
+            return false;
+        }
+        put(friends, userId, updatedFriends);
+        put(followers, friendId, delete(followers.getOrDefault(friendId, EMPTY), userId));
+        invalidateSuggestions(userId);
+        return true;
+    }
+
+    public synchronized void removeUser(long userId) {
+        invalidateSuggestions(userId);
+        for (long friendId : friends.getOrDefault(userId, EMPTY)) {
+            put(followers, friendId, delete(followers.getOrDefault(friendId, EMPTY), userId));
+        }
+        for (long followerId : followers.getOrDefault(userId, EMPTY)) {
+            put(friends, followerId, delete(friends.getOrDefault(followerId, EMPTY), userId));
+        }
+        friends.remove(userId);
+        followers.remove(userId);
+    }
+
+    public synchronized void putFriends(long userId, long[] sortedFriendIds) {
+        put(friends, userId, sortedFriendIds);
+        suggestions.invalidateAll();
+    }
+
+    public synchronized void putFollowers(long userId, long[] sortedFollowerIds) {
+        put(followers, userId, sortedFollowerIds);
+        suggestions.invalidateAll();
+    }
+
+    public long[] getFriends(long userId) {
+        return friends.getOrDefault(userId, EMPTY).clone();
+    }
+
+    public long[] getFollowers(long userId) {
+        return followers.getOrDefault(userId, EMPTY).clone();
+    }
+
+    public int getFriendCount(long userId) {
+        return friends.getOrDefault(userId, EMPTY).length;
+    }
+
+    public long[] getMutualFriends(long firstUserId, long secondUserId) {
+        return intersect(friends.getOrDefault(firstUserId, EMPTY), friends.getOrDefault(secondUserId, EMPTY));
+    }
+
+    public long[] getFriendSuggestions(long userId, int limit) {
+        if (limit > MAX_CACHED_SUGGESTIONS) {
+            return computeFriendSuggestions(userId, limit);
+        }
+        long[] cachedSuggestions = suggestions.get(userId,
+                key -> computeFriendSuggestions(key, MAX_CACHED_SUGGESTIONS));
+        return Arrays.copyOf(cachedSuggestions, Math.min(limit, cachedSuggestions.length));
+    }
+
+    public synchronized void clear() {
+        friends.clear();
+        followers.clear();
+        suggestions.invalidateAll();
+    }
+
+    private void invalidateSuggestions(long userId) {
+        suggestions.invalidate(userId);
+        for (long followerId : followers.getOrDefault(userId, EMPTY)) {
+            suggestions.invalidate(followerId);
+        }
+    }
+
+    private long[] computeFriendSuggestions(long userId, int limit) {
+        long[] userFriends = friends.getOrDefault(userId, EMPTY);
+        long[] sampledFriends = sample(userFriends, MAX_FAN_OUT);
+
+        long[][] secondHop = new long[sampledFriends.length][];
+        for (int i = 0; i < sampledFriends.length; i++) {
+            secondHop[i] = sample(friends.getOrDefault(sampledFriends[i], EMPTY), MAX_FAN_OUT);
+        }
+        long[] candidates = concatAndSort(secondHop);
+        int total = candidates.length;
+
+        long[] candidateIds = new long[total];
+        int[] scores = new int[total];
+        int candidateCount = 0;
+        for (int i = 0; i < total; ) {
+            int j = i;
+            while (j < total && candidates[j] == candidates[i]) {
+                j++;
+            }
+            if (candidates[i] != userId && !contains(userFriends, candidates[i])) {
+                candidateIds[candidateCount] = candidates[i];
+                scores[candidateCount] = j - i;
+                candidateCount++;
+            }
+            i = j;
+        }
+        return topByScore(candidateIds, scores, candidateCount, sampledFriends.length, limit);
+    }
+
+    static long[] intersect(long[] first, long[] second) {
+        if (first.length > second.length) {
+            return intersect(second, first);
+        }
+        if (first.length == 0) {
+            return EMPTY;
+        }
+
+        long[] result = new long[first.length];
+        int count = (long) first.length * GALLOPING_RATIO < second.length
+                ? gallopingIntersect(first, second, result)
+                : mergeIntersect(first, second, result);
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static int mergeIntersect(long[] first, long[] second, long[] result) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static int gallopingIntersect(long[] small, long[] large, long[] result) {
+        int count = 0;
+        int low = 0;
+        for (long value : small) {
+            int step = 1;
+            while (low + step < large.length && large[low + step] < value) {
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(large, low + (step >> 1), Math.min(low + step + 1, large.length), value);
+            if (position >= 0) {
+                result[count++] = value;
+                low = position + 1;
+            } else {
+                low = -position - 1;
+            }
+            if (low >= large.length) {
+                break;
+            }
+        }
+        return count;
+    }
+}
@@ -1,14 +1,17 @@
 package ru.yandex.practicum.filmorate.repository.user;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
 public class InMemoryUserRepository implements UserRepository {
-    private final Map<Long, User> users = new HashMap<>();
+    private final NavigableMap<Long, User> users = new TreeMap<>();
+    private final FriendGraphIndex friendGraph = new FriendGraphIndex();
     protected Long idCounter = 0L;
 
     @Override
@@ -16,12 +19,29 @@ public class InMemoryUserRepository implements UserRepository {
         return users.containsKey(userId);
     }
 
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> userIds) {
+        return userIds.stream()
+                .filter(users::containsKey)
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public boolean checkUserExistsByEmail(User user) {
         return users.values().stream()
                 .anyMatch(u -> u.getEmail().equals(user.getEmail()) && !u.getId().equals(user.getId()));
     }
 
+    @Override
+    public Set<String> getExistingEmails(Collection<String> emails) {
+        Set<String> existingEmails = users.values().stream()
+                .map(User::getEmail)
+                .collect(Collectors.toSet());
+        return emails.stream()
+                .filter(existingEmails::contains)
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public User create(User user) {
         user.setId(getNextId());
@@ -30,8 +50,13 @@ public class InMemoryUserRepository implements UserRepository {
     }
 
     @Override
-    public User get(Long userId) {
-        return users.get(userId);
+    public void createAll(List<User> users) {
+        users.forEach(this::create);
+    }
+
+    @Override
+    public Optional<User> get(Long userId) {
+        return Optional.ofNullable(users.get(userId));
     }
 
     @Override
@@ -40,42 +65,72 @@ public class InMemoryUserRepository implements UserRepository {
     }
 
     @Override
-    public User update(User user) {
-        users.put(user.getId(), user);
-        return user;
+    public Collection<User> getPage(long afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .toList();
     }
 
     @Override
-    public void delete(Long userId) {
-        users.remove(userId);
+    public void streamAll(Consumer<User> consumer) {
+        users.values().forEach(consumer);
     }
 
     @Override
-    public void addFriend(Long userId, Long friendId) {
-        users.get(userId).getFriends().add(friendId);
-        users.get(friendId).getFriends().add(userId);
+    public Optional<User> update(User user) {
+        return users.replace(user.getId(), user) == null ? Optional.empty() : Optional.of(user);
     }
 
     @Override
-    public Collection<User> getFriends(Long userId) {
-        return users.get(userId).getFriends().stream()
-                .map(users::get)
-                .collect(Collectors.toList());
+    public boolean delete(Long userId) {
+        friendGraph.removeUser(userId);
+        return users.remove(userId) != null;
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        if (!users.containsKey(userId) || !users.containsKey(friendId)) {
+            throw new DataIntegrityViolationException("User or friend can't be found on adding friend by ids: " +
+                    userId + ", " + friendId);
+        }
+        friendGraph.add(friendId, userId);
+        return friendGraph.add(userId, friendId);
+    }
+
+    @Override
+    public Optional<Collection<User>> getFriends(Long userId) {
+        if (!users.containsKey(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(getAllById(friendGraph.getFriends(userId)));
     }
 
     @Override
     public Collection<User> getMutualFriends(Long firstUserId, Long secondUserId) {
-        final Set<Long> secondUserFriends = users.get(secondUserId).getFriends();
-        return users.get(firstUserId).getFriends().stream()
-                .filter(secondUserFriends::contains)
-                .map(users::get)
-                .collect(Collectors.toList());
+        return getAllById(friendGraph.getMutualFriends(firstUserId, secondUserId));
     }
 
     @Override
-    public void removeFriend(Long userId, Long friendId) {
-        users.get(userId).getFriends().remove(friendId);
-        users.get(friendId).getFriends().remove(userId);
+    public Optional<Collection<User>> getFriendSuggestions(Long userId, int limit) {
+        if (!users.containsKey(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(getAllById(friendGraph.getFriendSuggestions(userId, limit)));
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        if (!users.containsKey(userId) || !users.containsKey(friendId)) {
+            return false;
+        }
+        friendGraph.remove(friendId, userId);
+        return friendGraph.remove(userId, friendId);
+    }
+
+    private Collection<User> getAllById(long[] userIds) {
+        return Arrays.stream(userIds)
+                .mapToObj(users::get)
+                .collect(Collectors.toList());
     }
 
     private long getNextId() {
@@ -1,25 +1,53 @@
 package ru.yandex.practicum.filmorate.repository.user;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.config.CacheConfig;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.AdjacencyLoader;
+import ru.yandex.practicum.filmorate.repository.RollbackCompensation;
+import ru.yandex.practicum.filmorate.repository.film.LikeMatrixIndex;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 
 @Repository
 @Primary
+@ConditionalOnProperty(name = "filmorate.sharding.enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 public class JdbcUserRepository implements UserRepository {
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     private final NamedParameterJdbcOperations jdbc;
+    private final LikeMatrixIndex likeMatrix;
+    private final FriendGraphIndex friendGraph = new FriendGraphIndex();
 
-    private User mapRowToUser(ResultSet resultSet, int rowNum) throws SQLException {
+    static User mapRowToUser(ResultSet resultSet, int rowNum) throws SQLException {
         return User.builder()
                 .id(resultSet.getLong("user_id"))
                 .email(resultSet.getString("email"))
@@ -29,6 +57,15 @@ public class JdbcUserRepository implements UserRepository {
                 .build();
     }
 
+    @PostConstruct
+    public void loadFriendGraph() {
+        friendGraph.clear();
+        AdjacencyLoader.load(jdbc, "SELECT \"user_id\", \"friend_id\" FROM \"user_user_friend\" " +
+                "ORDER BY \"user_id\", \"friend_id\";", friendGraph::putFriends);
+        AdjacencyLoader.load(jdbc, "SELECT \"friend_id\", \"user_id\" FROM \"user_user_friend\" " +
+                "ORDER BY \"friend_id\", \"user_id\";", friendGraph::putFollowers);
+    }
+
     @Override
     public boolean checkUserExists(Long userId) {
         String sqlQuery = "SELECT COUNT(*) FROM \"user\" WHERE \"user_id\" = :user_id;";
@@ -36,6 +73,17 @@ public class JdbcUserRepository implements UserRepository {
         return 1 == jdbc.queryForObject(sqlQuery, new MapSqlParameterSource("user_id", userId), Integer.class);
     }
 
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+
+        String sqlQuery = "SELECT \"user_id\" FROM \"user\" WHERE \"user_id\" IN (:user_ids);";
+
+        return new HashSet<>(jdbc.queryForList(sqlQuery, new MapSqlParameterSource("user_ids", userIds), Long.class));
+    }
+
     @Override
     public boolean checkUserExistsByEmail(User user) {
         String sqlQuery = "SELECT COUNT(*) FROM \"user\" WHERE \"email\" = :email" +
@@ -45,6 +93,17 @@ public class JdbcUserRepository implements UserRepository {
         return 1 == jdbc.queryForObject(sqlQuery, new MapSqlParameterSource(user.toMap()), Integer.class);
     }
 
+    @Override
+    public Set<String> getExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+
+        String sqlQuery = "SELECT \"email\" FROM \"user\" WHERE \"email\" IN (:emails);";
+
+        return new HashSet<>(jdbc.queryForList(sqlQuery, new MapSqlParameterSource("emails", emails), String.class));
+    }
+
     @Override
     public User create(User user) {
         String sqlQuery = "INSERT INTO \"user\" (\"email\", \"login\", \"name\", \"birthday\") " +
@@ -59,76 +118,206 @@ public class JdbcUserRepository implements UserRepository {
     }
 
     @Override
-    public User get(Long userId) {
+    @Transactional
+    public void createAll(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+
+        StringJoiner values = new StringJoiner(", ");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        for (int i = 0; i < users.size(); i++) {
+            values.add("(:email_" + i + ", :login_" + i + ", :name_" + i + ", :birthday_" + i + ")");
+            final int index = i;
+            users.get(i).toMap().forEach((key, value) -> params.addValue(key + "_" + index, value));
+        }
+        String sqlQuery = "INSERT INTO \"user\" (\"email\", \"login\", \"name\", \"birthday\") VALUES " + values + ";";
+
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbc.update(sqlQuery, params, keyHolder, new String[]{"user_id"});
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).get("user_id")).longValue());
+        }
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#userId", unless = "#result == null")
+    public Optional<User> get(Long userId) {
         String sqlQuery = "SELECT * FROM \"user\" WHERE \"user_id\" = :user_id;";
 
-        return jdbc.queryForObject(sqlQuery, new MapSqlParameterSource("user_id", userId), this::mapRowToUser);
+        return jdbc.query(sqlQuery, new MapSqlParameterSource("user_id", userId), JdbcUserRepository::mapRowToUser)
+                .stream()
+                .findFirst();
     }
 
     @Override
     public Collection<User> getAll() {
         String sqlQuery = "SELECT * FROM \"user\";";
 
-        return jdbc.query(sqlQuery, this::mapRowToUser);
+        return jdbc.query(sqlQuery, JdbcUserRepository::mapRowToUser);
     }
 
     @Override
-    public User update(User user) {
+    public Collection<User> getPage(long afterId, int limit) {
+        String sqlQuery = "SELECT * FROM \"user\" WHERE \"user_id\" > :after_id ORDER BY \"user_id\" LIMIT :limit;";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("after_id", afterId);
+        params.addValue("limit", limit);
+
+        return jdbc.query(sqlQuery, params, JdbcUserRepository::mapRowToUser);
+    }
+
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        String sqlQuery = "SELECT * FROM \"user\" ORDER BY \"user_id\";";
+
+        jdbc.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sqlQuery,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (ResultSet rs) -> {
+            consumer.accept(mapRowToUser(rs, rs.getRow()));
+        });
+    }
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.USERS, CacheConfig.USER_JSON}, key = "#user.id")
+    public Optional<User> update(User user) {
         String sqlQuery = "UPDATE \"user\" SET \"email\" = :email, \"login\" = :login, \"name\" = :name," +
                 " \"birthday\" = :birthday WHERE \"user_id\" = :user_id;";
 
-        jdbc.update(sqlQuery, user.toMap());
-
-        return user;
+        return jdbc.update(sqlQuery, user.toMap()) == 0 ? Optional.empty() : Optional.of(user);
     }
 
     @Override
-    public void delete(Long userId) {
-        String sqlQuery = "DELETE FROM \"user\" WHERE \"user_id\" = :user_id;";
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.USERS, CacheConfig.USER_JSON}, key = "#userId"),
+            @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    })
+    public boolean delete(Long userId) {
+        String sqlQuery = "UPDATE \"film\" SET \"likes_count\" = \"likes_count\" - 1 WHERE \"film_id\" IN " +
+                "(SELECT \"film_id\" FROM \"user_film_like\" WHERE \"user_id\" = :user_id);";
         jdbc.update(sqlQuery, new MapSqlParameterSource("user_id", userId));
+
+        sqlQuery = "DELETE FROM \"user\" WHERE \"user_id\" = :user_id;";
+        if (jdbc.update(sqlQuery, new MapSqlParameterSource("user_id", userId)) == 0) {
+            return false;
+        }
+
+        long[] friendIds = friendGraph.getFriends(userId);
+        long[] followerIds = friendGraph.getFollowers(userId);
+        friendGraph.removeUser(userId);
+        long[] filmIds = likeMatrix.removeUser(userId);
+        RollbackCompensation.onRollback(() -> {
+            for (long friendId : friendIds) {
+                friendGraph.add(userId, friendId);
+            }
+            for (long followerId : followerIds) {
+                friendGraph.add(followerId, userId);
+            }
+            for (long filmId : filmIds) {
+                likeMatrix.add(userId, filmId);
+            }
+        });
+        return true;
     }
 
     @Override
-    public void addFriend(Long userId, Long friendId) {
-        String sqlQuery = "MERGE INTO \"user_user_friend\" (\"user_id\", \"friend_id\") VALUES (:user_id, :friend_id);";
+    public boolean addFriend(Long userId, Long friendId) {
+        String sqlQuery = "INSERT INTO \"user_user_friend\" (\"user_id\", \"friend_id\") " +
+                "SELECT :user_id, :friend_id WHERE NOT EXISTS (SELECT 1 FROM \"user_user_friend\" " +
+                "WHERE \"user_id\" = :user_id AND \"friend_id\" = :friend_id);";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("user_id", userId);
         params.addValue("friend_id", friendId);
 
-        jdbc.update(sqlQuery, params);
+        try {
+            if (jdbc.update(sqlQuery, params) == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+
+        friendGraph.add(userId, friendId);
+        RollbackCompensation.onRollback(() -> friendGraph.remove(userId, friendId));
+        return true;
     }
 
     @Override
-    public Collection<User> getFriends(Long userId) {
-        String sqlQuery = "SELECT * FROM \"user\" WHERE \"user_id\" IN " +
-                "(SELECT \"friend_id\" FROM \"user_user_friend\" WHERE \"user_id\" = :user_id);";
-
-        return jdbc.query(sqlQuery, new MapSqlParameterSource("user_id", userId), this::mapRowToUser);
+    public Optional<Collection<User>> getFriends(Long userId) {
+        String sqlQuery = "SELECT u.\"user_id\" AS \"owner_id\", f.* FROM \"user\" AS u " +
+                "LEFT JOIN \"user_user_friend\" AS uf ON u.\"user_id\" = uf.\"user_id\" " +
+                "LEFT JOIN \"user\" AS f ON uf.\"friend_id\" = f.\"user_id\" " +
+                "WHERE u.\"user_id\" = :user_id;";
+
+        return jdbc.query(sqlQuery, new MapSqlParameterSource("user_id", userId), rs -> {
+            if (!rs.next()) {
+                return Optional.empty();
+            }
+            Collection<User> friends = new ArrayList<>();
+            do {
+                rs.getLong("user_id");
+                if (!rs.wasNull()) {
+                    friends.add(mapRowToUser(rs, rs.getRow()));
+                }
+            } while (rs.next());
+            return Optional.of(friends);
+        });
     }
 
     @Override
     public Collection<User> getMutualFriends(Long firstUserId, Long secondUserId) {
-        String sqlQuery = "SELECT * FROM \"user\" WHERE \"user_id\" IN " +
-                "(SELECT \"friend_id\" FROM \"user_user_friend\" WHERE \"user_id\" = :first_user_id " +
-                "INTERSECT " +
-                "SELECT \"friend_id\" FROM \"user_user_friend\" WHERE \"user_id\" = :second_user_id);";
-
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("first_user_id", firstUserId);
-        params.addValue("second_user_id", secondUserId);
+        return getAllById(friendGraph.getMutualFriends(firstUserId, secondUserId));
+    }
 
-        return jdbc.query(sqlQuery, params, this::mapRowToUser);
+    @Override
+    public Optional<Collection<User>> getFriendSuggestions(Long userId, int limit) {
+        if (!checkUserExists(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(getAllById(friendGraph.getFriendSuggestions(userId, limit)));
     }
 
     @Override
-    public void removeFriend(Long userId, Long friendId) {
+    public boolean removeFriend(Long userId, Long friendId) {
         String sqlQuery = "DELETE FROM \"user_user_friend\" WHERE \"user_id\" = :user_id AND \"friend_id\" = :friend_id;";
 
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("user_id", userId);
         params.addValue("friend_id", friendId);
 
-        jdbc.update(sqlQuery, params);
+        if (jdbc.update(sqlQuery, params) == 0) {
+            return false;
+        }
+
+        friendGraph.remove(userId, friendId);
+        RollbackCompensation.onRollback(() -> friendGraph.add(userId, friendId));
+        return true;
+    }
+
+    private Collection<User> getAllById(long[] userIds) {
+        if (userIds.length == 0) {
+            return List.of();
+        }
+
+        String sqlQuery = "SELECT * FROM \"user\" WHERE \"user_id\" IN (:user_ids);";
+
+        Map<Long, User> users = new HashMap<>();
+        jdbc.query(sqlQuery, new MapSqlParameterSource("user_ids", Arrays.stream(userIds).boxed().toList()),
+                (ResultSet rs) -> {
+                    User user = mapRowToUser(rs, rs.getRow());
+                    users.put(user.getId(), user);
+                });
+        return Arrays.stream(userIds)
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 }
\ No newline at end of file
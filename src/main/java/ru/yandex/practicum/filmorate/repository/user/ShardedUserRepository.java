@@ -0,0 +1,348 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.config.CacheConfig;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.UserShards;
+import ru.yandex.practicum.filmorate.repository.film.LikeMatrixIndex;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+@Repository
+@Primary
+@ConditionalOnProperty(name = "filmorate.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardedUserRepository implements UserRepository {
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    private final UserShards shards;
+    private final LikeMatrixIndex likeMatrix;
+    private final FriendGraphIndex friendGraph = new FriendGraphIndex();
+
+    @PostConstruct
+    public void loadFriendGraph() {
+        friendGraph.clear();
+        shards.loadAdjacency("SELECT \"user_id\", \"friend_id\" FROM \"user_user_friend\" " +
+                "ORDER BY \"user_id\", \"friend_id\";", friendGraph::putFriends);
+        shards.loadAdjacency("SELECT \"friend_id\", \"user_id\" FROM \"user_user_friend\" " +
+                "ORDER BY \"friend_id\", \"user_id\";", friendGraph::putFollowers);
+    }
+
+    @Override
+    public boolean checkUserExists(Long userId) {
+        String sqlQuery = "SELECT COUNT(*) FROM \"user\" WHERE \"user_id\" = :user_id;";
+
+        return 1 == shards.forUser(userId)
+                .queryForObject(sqlQuery, new MapSqlParameterSource("user_id", userId), Integer.class);
+    }
+
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+
+        String sqlQuery = "SELECT \"user_id\" FROM \"user\" WHERE \"user_id\" IN (:user_ids);";
+
+        Map<Integer, List<Long>> idsByShard = shards.groupByShard(userIds, Long::longValue);
+        Set<Long> existingIds = new HashSet<>();
+        shards.scatter((shard, jdbc) -> idsByShard.containsKey(shard)
+                        ? jdbc.queryForList(sqlQuery, new MapSqlParameterSource("user_ids", idsByShard.get(shard)),
+                        Long.class)
+                        : List.<Long>of())
+                .forEach(existingIds::addAll);
+        return existingIds;
+    }
+
+    @Override
+    public boolean checkUserExistsByEmail(User user) {
+        String sqlQuery = "SELECT COUNT(*) FROM \"user\" WHERE \"email\" = :email" +
+                (user.getId() == null ? "" : " AND \"user_id\" <> :user_id") + ";";
+
+        return shards.scatter((shard, jdbc) ->
+                        jdbc.queryForObject(sqlQuery, new MapSqlParameterSource(user.toMap()), Integer.class))
+                .stream()
+                .anyMatch(count -> count > 0);
+    }
+
+    @Override
+    public Set<String> getExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+
+        String sqlQuery = "SELECT \"email\" FROM \"user\" WHERE \"email\" IN (:emails);";
+
+        Set<String> existingEmails = new HashSet<>();
+        shards.scatter((shard, jdbc) ->
+                        jdbc.queryForList(sqlQuery, new MapSqlParameterSource("emails", emails), String.class))
+                .forEach(existingEmails::addAll);
+        return existingEmails;
+    }
+
+    @Override
+    public User create(User user) {
+        String sqlQuery = "INSERT INTO \"user\" (\"email\", \"login\", \"name\", \"birthday\") " +
+                "VALUES (:email, :login, :name, :birthday);";
+
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+
+        shards.jdbc(shards.nextShard()).update(sqlQuery, new MapSqlParameterSource(user.toMap()), keyHolder);
+        user.setId(keyHolder.getKeyAs(Long.class));
+
+        return user;
+    }
+
+    // every shard inserts its part in one statement, but the shards aren't committed together
+    @Override
+    public void createAll(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, List<User>> usersByShard = new HashMap<>();
+        for (User user : users) {
+            usersByShard.computeIfAbsent(shards.nextShard(), shard -> new ArrayList<>()).add(user);
+        }
+        shards.scatter((shard, jdbc) -> {
+            List<User> shardUsers = usersByShard.getOrDefault(shard, List.of());
+            if (shardUsers.isEmpty()) {
+                return 0;
+            }
+
+            StringJoiner values = new StringJoiner(", ");
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            for (int i = 0; i < shardUsers.size(); i++) {
+                values.add("(:email_" + i + ", :login_" + i + ", :name_" + i + ", :birthday_" + i + ")");
+                final int index = i;
+                shardUsers.get(i).toMap().forEach((key, value) -> params.addValue(key + "_" + index, value));
+            }
+            String sqlQuery = "INSERT INTO \"user\" (\"email\", \"login\", \"name\", \"birthday\") VALUES " +
+                    values + ";";
+
+            GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+
+            jdbc.update(sqlQuery, params, keyHolder, new String[]{"user_id"});
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < shardUsers.size(); i++) {
+                shardUsers.get(i).setId(((Number) keys.get(i).get("user_id")).longValue());
+            }
+            return shardUsers.size();
+        });
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#userId", unless = "#result == null")
+    public Optional<User> get(Long userId) {
+        String sqlQuery = "SELECT * FROM \"user\" WHERE \"user_id\" = :user_id;";
+
+        return shards.forUser(userId)
+                .query(sqlQuery, new MapSqlParameterSource("user_id", userId), JdbcUserRepository::mapRowToUser)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Collection<User> getAll() {
+        String sqlQuery = "SELECT * FROM \"user\";";
+
+        return shards.scatter((shard, jdbc) -> jdbc.query(sqlQuery, JdbcUserRepository::mapRowToUser))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(User::getId))
+                .toList();
+    }
+
+    // every shard returns its own first page, the merged page is the smallest ids among them
+    @Override
+    public Collection<User> getPage(long afterId, int limit) {
+        String sqlQuery = "SELECT * FROM \"user\" WHERE \"user_id\" > :after_id ORDER BY \"user_id\" LIMIT :limit;";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("after_id", afterId);
+        params.addValue("limit", limit);
+
+        return shards.scatter((shard, jdbc) -> jdbc.query(sqlQuery, params, JdbcUserRepository::mapRowToUser))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(User::getId))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        long afterId = 0;
+        Collection<User> page;
+        do {
+            page = getPage(afterId, STREAM_PAGE_SIZE);
+            for (User user : page) {
+                consumer.accept(user);
+                afterId = user.getId();
+            }
+        } while (page.size() == STREAM_PAGE_SIZE);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.USERS, CacheConfig.USER_JSON}, key = "#user.id")
+    public Optional<User> update(User user) {
+        String sqlQuery = "UPDATE \"user\" SET \"email\" = :email, \"login\" = :login, \"name\" = :name," +
+                " \"birthday\" = :birthday WHERE \"user_id\" = :user_id;";
+
+        return shards.forUser(user.getId()).update(sqlQuery, user.toMap()) == 0
+                ? Optional.empty()
+                : Optional.of(user);
+    }
+
+    // likes and friends of the user go with the cascade on its shard, friendships to it are removed everywhere
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.USERS, CacheConfig.USER_JSON}, key = "#userId"),
+            @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.FILM_JSON}, allEntries = true)
+    })
+    public boolean delete(Long userId) {
+        String lockQuery = "SELECT \"user_id\" FROM \"user\" WHERE \"user_id\" = :user_id FOR UPDATE;";
+        // likes are deleted by the cascade, so the like counts of the shard are decreased first
+        String countsQuery = "UPDATE \"film_like_count\" SET \"likes\" = \"likes\" - 1 WHERE \"film_id\" IN " +
+                "(SELECT \"film_id\" FROM \"user_film_like\" WHERE \"user_id\" = :user_id);";
+        String sqlQuery = "DELETE FROM \"user\" WHERE \"user_id\" = :user_id;";
+
+        MapSqlParameterSource params = new MapSqlParameterSource("user_id", userId);
+        NamedParameterJdbcOperations userJdbc = shards.forUser(userId);
+        boolean deleted = shards.inTransaction(shards.shardOf(userId), () -> {
+            if (userJdbc.queryForList(lockQuery, params, Long.class).isEmpty()) {
+                return false;
+            }
+            userJdbc.update(countsQuery, params);
+            return userJdbc.update(sqlQuery, params) > 0;
+        });
+        if (!deleted) {
+            return false;
+        }
+
+        String friendsQuery = "DELETE FROM \"user_user_friend\" WHERE \"friend_id\" = :user_id;";
+        shards.scatter((shard, jdbc) -> jdbc.update(friendsQuery, new MapSqlParameterSource("user_id", userId)));
+
+        friendGraph.removeUser(userId);
+        likeMatrix.removeUser(userId);
+        return true;
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        // the friend can live on another shard, so there is no foreign key to check it
+        if (!checkUserExists(friendId)) {
+            throw new DataIntegrityViolationException("User with id " + friendId + " doesn't exist");
+        }
+
+        String sqlQuery = "INSERT INTO \"user_user_friend\" (\"user_id\", \"friend_id\") " +
+                "SELECT :user_id, :friend_id WHERE NOT EXISTS (SELECT 1 FROM \"user_user_friend\" " +
+                "WHERE \"user_id\" = :user_id AND \"friend_id\" = :friend_id);";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("user_id", userId);
+        params.addValue("friend_id", friendId);
+
+        try {
+            if (shards.forUser(userId).update(sqlQuery, params) == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+
+        friendGraph.add(userId, friendId);
+        return true;
+    }
+
+    @Override
+    public Optional<Collection<User>> getFriends(Long userId) {
+        if (!checkUserExists(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(getAllById(friendGraph.getFriends(userId)));
+    }
+
+    @Override
+    public Collection<User> getMutualFriends(Long firstUserId, Long secondUserId) {
+        return getAllById(friendGraph.getMutualFriends(firstUserId, secondUserId));
+    }
+
+    @Override
+    public Optional<Collection<User>> getFriendSuggestions(Long userId, int limit) {
+        if (!checkUserExists(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(getAllById(friendGraph.getFriendSuggestions(userId, limit)));
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        String sqlQuery = "DELETE FROM \"user_user_friend\" " +
+                "WHERE \"user_id\" = :user_id AND \"friend_id\" = :friend_id;";
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("user_id", userId);
+        params.addValue("friend_id", friendId);
+
+        if (shards.forUser(userId).update(sqlQuery, params) == 0) {
+            return false;
+        }
+
+        friendGraph.remove(userId, friendId);
+        return true;
+    }
+
+    // ids are grouped by shard and every group is fetched in parallel
+    private Collection<User> getAllById(long[] userIds) {
+        if (userIds.length == 0) {
+            return List.of();
+        }
+
+        String sqlQuery = "SELECT * FROM \"user\" WHERE \"user_id\" IN (:user_ids);";
+
+        Map<Integer, List<Long>> idsByShard = shards.groupByShard(Arrays.stream(userIds).boxed().toList(),
+                Long::longValue);
+        Map<Long, User> users = new HashMap<>();
+        shards.scatter((shard, jdbc) -> {
+            Map<Long, User> shardUsers = new HashMap<>();
+            if (idsByShard.containsKey(shard)) {
+                jdbc.query(sqlQuery, new MapSqlParameterSource("user_ids", idsByShard.get(shard)),
+                        (ResultSet rs) -> {
+                            User user = JdbcUserRepository.mapRowToUser(rs, rs.getRow());
+                            shardUsers.put(user.getId(), user);
+                        });
+            }
+            return shardUsers;
+        }).forEach(users::putAll);
+        return Arrays.stream(userIds)
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
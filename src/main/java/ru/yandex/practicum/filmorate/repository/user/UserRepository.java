@@ -3,27 +3,43 @@ package ru.yandex.practicum.filmorate.repository.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserRepository {
     boolean checkUserExists(Long userId);
 
+    Set<Long> getExistingIds(Collection<Long> userIds);
+
     boolean checkUserExistsByEmail(User user);
 
+    Set<String> getExistingEmails(Collection<String> emails);
+
     User create(User user);
 
-    User get(Long userId);
+    void createAll(List<User> users);
+
+    Optional<User> get(Long userId);
 
     Collection<User> getAll();
 
-    User update(User user);
+    Collection<User> getPage(long afterId, int limit);
 
-    void delete(Long userId);
+    void streamAll(Consumer<User> consumer);
 
-    void addFriend(Long userId, Long friendId);
+    Optional<User> update(User user);
 
-    Collection<User> getFriends(Long userId);
+    boolean delete(Long userId);
+
+    boolean addFriend(Long userId, Long friendId);
+
+    Optional<Collection<User>> getFriends(Long userId);
 
     Collection<User> getMutualFriends(Long firstUserId, Long secondUserId);
 
-    void removeFriend(Long userId, Long friendId);
+    Optional<Collection<User>> getFriendSuggestions(Long userId, int limit);
+
+    boolean removeFriend(Long userId, Long friendId);
 }
\ No newline at end of file
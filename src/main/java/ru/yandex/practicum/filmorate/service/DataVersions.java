@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class DataVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong films = new AtomicLong();
+    private final AtomicLong likes = new AtomicLong();
+    private final AtomicLong reference = new AtomicLong();
+
+    public void filmsChanged() {
+        films.incrementAndGet();
+    }
+
+    public void likesChanged() {
+        likes.incrementAndGet();
+    }
+
+    public void referenceChanged() {
+        reference.incrementAndGet();
+    }
+
+    public String getFilmsTag() {
+        return "films-" + epoch + "-" + films.get();
+    }
+
+    public String getPopularFilmsTag() {
+        return "popular-" + epoch + "-" + films.get() + "-" + likes.get();
+    }
+
+    public String getReferenceDataTag() {
+        return "reference-" + epoch + "-" + reference.get();
+    }
+}
@@ -2,59 +2,112 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeBatchResult;
+import ru.yandex.practicum.filmorate.model.FilmLikeFailure;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
 import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
 import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 
 import java.time.LocalDate;
-import java.util.Collection;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FilmService {
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+
     private final FilmRepository filmRepository;
     private final UserRepository userRepository;
     private final MpaRepository mpaRepository;
     private final GenreRepository genreRepository;
+    private final Optional<LikeWriteBehindQueue> likeQueue;
+    private final DataVersions dataVersions;
 
     public final Film create(Film film) {
         checkFilmConstraints(film);
-
-        if (film.getMpa() != null && !mpaRepository.checkMpaExists(film.getMpa().getId())) {
-            throw new ValidationException("Mpa rating can't be found on creating film by id: " + film.getMpa().getId());
-        }
-        if (!genreRepository.checkGenresExist(
-                film.getGenres().stream()
-                        .map(Genre::getId)
-                        .collect(Collectors.toList()))
-        ) {
-            throw new ValidationException("Not all Genres can be found on creating film by ids: " + film.getGenres());
-        }
+        checkFilmReferences(film, "creating film");
 
         Film createdFilm = filmRepository.create(film);
+        dataVersions.filmsChanged();
         log.info("Film is created: {}", createdFilm);
         return createdFilm;
     }
 
+    public ImportResult importAll(Iterator<Film> films) {
+        ImportResult result = new ImportResult();
+        List<Film> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        long line = 0;
+        while (films.hasNext()) {
+            line++;
+            try {
+                Film film = films.next();
+                checkFilmConstraints(film);
+                checkFilmReferences(film, "importing film");
+                chunk.add(film);
+            } catch (ValidationException e) {
+                result.addFailure(line, e.getMessage());
+            }
+
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                importChunk(chunk, result);
+            }
+        }
+        importChunk(chunk, result);
+
+        log.info("Films are imported: {} imported, {} failed", result.getImported(), result.getFailed());
+        return result;
+    }
+
     public Collection<Film> getAll() {
         return filmRepository.getAll();
     }
 
-    public Film get(long filmId) {
-        if (!filmRepository.checkFilmExists(filmId)) {
-            throw new NotFoundException("Film can't be found on getting by id: " + filmId);
-        }
+    public Collection<Film> getPage(long afterId, int limit) {
+        log.trace("Page of films is requested after id {} with limit {}", afterId, limit);
+        return filmRepository.getPage(afterId, limit);
+    }
+
+    public Collection<Film> find(FilmFilter filter, long afterId, int limit) {
+        checkFilter(filter);
+        log.trace("Page of films is requested by filter {} after id {} with limit {}", filter, afterId, limit);
+        return filmRepository.find(filter, afterId, limit);
+    }
+
+    public Collection<Film> findMostPopular(FilmFilter filter, int limit) {
+        checkFilter(filter);
+        likeQueue.ifPresent(LikeWriteBehindQueue::flush);
+        log.trace("Most popular films are requested by filter {} with limit {}", filter, limit);
+        return filmRepository.findMostPopular(filter, limit);
+    }
+
+    public Collection<Film> search(String query, int limit) {
+        log.trace("Films are searched by query \"{}\" with limit {}", query, limit);
+        return filmRepository.search(query, limit);
+    }
 
-        log.trace("User is requested by id: {}", filmId);
-        return filmRepository.get(filmId);
+    public void streamAll(Consumer<Film> consumer) {
+        log.trace("Stream of all films is requested");
+        filmRepository.streamAll(consumer);
+    }
+
+    public Film get(long filmId) {
+        log.trace("Film is requested by id: {}", filmId);
+        return filmRepository.get(filmId)
+                .orElseThrow(() -> new NotFoundException("Film can't be found on getting by id: " + filmId));
     }
 
     public Film update(Film newFilm) {
@@ -62,53 +115,157 @@ public class FilmService {
             throw new ValidationException("Film id can't be null on update: " + newFilm);
         }
 
-        if (filmRepository.get(newFilm.getId()) != null) {
-            checkFilmConstraints(newFilm);
-            if (newFilm.getMpa() != null && !mpaRepository.checkMpaExists(newFilm.getMpa().getId())) {
-                throw new ValidationException("Mpa rating can't be found on updating film by id: " +
-                        newFilm.getMpa().getId());
-            }
-            if (!genreRepository.checkGenresExist(
-                    newFilm.getGenres().stream()
-                            .map(Genre::getId)
-                            .collect(Collectors.toList()))
-            ) {
-                throw new ValidationException("Not all Genres can be found on updating film by ids: " + newFilm.getGenres());
-            }
+        checkFilmConstraints(newFilm);
+        checkFilmReferences(newFilm, "updating film");
 
-            Film updatedFilm = filmRepository.update(newFilm);
-            log.info("Film is updated: {}", updatedFilm);
-            return updatedFilm;
-        }
-        throw new NotFoundException("Film can't be found by id: " + newFilm);
+        Film updatedFilm = filmRepository.update(newFilm)
+                .orElseThrow(() -> new NotFoundException("Film can't be found by id: " + newFilm));
+        dataVersions.filmsChanged();
+        log.info("Film is updated: {}", updatedFilm);
+        return updatedFilm;
     }
 
     public void addLike(Long filmId, Long userId) {
-        if (!filmRepository.checkFilmExists(filmId)) {
-            throw new NotFoundException("Film can't be found on adding like by id: " + filmId);
+        if (likeQueue.isPresent()) {
+            checkFilmAndUserExist(filmId, userId, "adding like");
+            likeQueue.get().addLike(filmId, userId);
+            log.info("User with id {} added a like to film with id {} (queued)", userId, filmId);
+            return;
         }
-        if (!userRepository.checkUserExists(userId)) {
-            throw new NotFoundException("User can't be found on adding like by id: " + userId);
+        boolean added;
+        try {
+            added = filmRepository.addLike(filmId, userId);
+        } catch (DataIntegrityViolationException e) {
+            checkFilmAndUserExist(filmId, userId, "adding like");
+            throw e;
+        }
+        if (added) {
+            dataVersions.likesChanged();
         }
-
-        filmRepository.addLike(filmId, userId);
         log.info("User with id {} added a like to film with id {}", userId, filmId);
     }
 
+    public void flushLikes() {
+        likeQueue.ifPresent(LikeWriteBehindQueue::flush);
+    }
+
+    public long getFilmCount() {
+        return filmRepository.getFilmCount();
+    }
+
     public Collection<Film> getMostPopular(long count) {
+        likeQueue.ifPresent(LikeWriteBehindQueue::flush);
         return filmRepository.getMostPopular(count);
     }
 
     public void removeLike(Long filmId, Long userId) {
+        if (likeQueue.isPresent()) {
+            checkFilmAndUserExist(filmId, userId, "removing like");
+            likeQueue.get().removeLike(filmId, userId);
+            log.info("User with id {} removed a like from film with id {} (queued)", userId, filmId);
+            return;
+        }
+        if (filmRepository.removeLike(filmId, userId)) {
+            dataVersions.likesChanged();
+        } else {
+            checkFilmAndUserExist(filmId, userId, "removing like");
+        }
+        log.info("User with id {} removed a like from film with id {}", userId, filmId);
+    }
+
+    public FilmLikeBatchResult addLikes(List<FilmLike> likes) {
+        return applyLikes(likes, filmRepository::addLikes, "adding like");
+    }
+
+    public FilmLikeBatchResult removeLikes(List<FilmLike> likes) {
+        return applyLikes(likes, filmRepository::removeLikes, "removing like");
+    }
+
+    private FilmLikeBatchResult applyLikes(List<FilmLike> likes, ToIntFunction<Collection<FilmLike>> applier,
+                                           String action) {
+        likeQueue.ifPresent(LikeWriteBehindQueue::flush);
+        List<FilmLikeFailure> failures = new ArrayList<>();
+        int applied;
+        try {
+            applied = applier.applyAsInt(validateLikes(likes, failures, action));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch of likes is retried on {} after a concurrent change: {}", action, e.getMessage());
+            failures.clear();
+            applied = applier.applyAsInt(validateLikes(likes, failures, action));
+        }
+        if (applied > 0) {
+            dataVersions.likesChanged();
+        }
+
+        log.info("Batch of {} likes is processed on {}: {} applied, {} failed",
+                likes.size(), action, applied, failures.size());
+        return new FilmLikeBatchResult(likes.size(), applied, failures);
+    }
+
+    private Set<FilmLike> validateLikes(List<FilmLike> likes, List<FilmLikeFailure> failures, String action) {
+        Set<Long> existingFilmIds = filmRepository.getExistingIds(likes.stream()
+                .map(FilmLike::getFilmId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        Set<Long> existingUserIds = userRepository.getExistingIds(likes.stream()
+                .map(FilmLike::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        Set<FilmLike> validLikes = new LinkedHashSet<>();
+        for (FilmLike like : likes) {
+            if (like.getFilmId() == null || like.getUserId() == null) {
+                failures.add(new FilmLikeFailure(like.getFilmId(), like.getUserId(),
+                        "Film id and user id can't be null on " + action));
+            } else if (!existingFilmIds.contains(like.getFilmId())) {
+                failures.add(new FilmLikeFailure(like.getFilmId(), like.getUserId(),
+                        "Film can't be found on " + action + " by id: " + like.getFilmId()));
+            } else if (!existingUserIds.contains(like.getUserId())) {
+                failures.add(new FilmLikeFailure(like.getFilmId(), like.getUserId(),
+                        "User can't be found on " + action + " by id: " + like.getUserId()));
+            } else {
+                validLikes.add(like);
+            }
+        }
+        return validLikes;
+    }
+
+    private void importChunk(List<Film> chunk, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        filmRepository.createAll(chunk);
+        dataVersions.filmsChanged();
+        result.addImported(chunk.size());
+        chunk.clear();
+    }
+
+    private void checkFilmReferences(Film film, String action) {
+        if (film.getMpa() != null && !mpaRepository.checkMpaExists(film.getMpa().getId())) {
+            throw new ValidationException("Mpa rating can't be found on " + action + " by id: " + film.getMpa().getId());
+        }
+        if (!genreRepository.checkGenresExist(
+                film.getGenres().stream()
+                        .map(Genre::getId)
+                        .collect(Collectors.toList()))
+        ) {
+            throw new ValidationException("Not all Genres can be found on " + action + " by ids: " + film.getGenres());
+        }
+    }
+
+    private void checkFilmAndUserExist(Long filmId, Long userId, String action) {
         if (!filmRepository.checkFilmExists(filmId)) {
-            throw new NotFoundException("Film can't be found on removing like by id: " + filmId);
+            throw new NotFoundException("Film can't be found on " + action + " by id: " + filmId);
         }
         if (!userRepository.checkUserExists(userId)) {
-            throw new NotFoundException("User can't be found on removing like by id: " + userId);
+            throw new NotFoundException("User can't be found on " + action + " by id: " + userId);
         }
+    }
 
-        filmRepository.removeLike(filmId, userId);
-        log.info("User with id {} removed a like from film with id {}", userId, filmId);
+    private void checkFilter(FilmFilter filter) {
+        if (filter.getYearFrom() != null && filter.getYearTo() != null && filter.getYearFrom() > filter.getYearTo()) {
+            throw new ValidationException("Film release year range can't be empty: " + filter);
+        }
     }
 
     private void checkFilmConstraints(Film film) {
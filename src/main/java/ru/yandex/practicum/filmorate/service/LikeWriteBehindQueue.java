@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.config.LikeWriteBehindProperties;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+@Slf4j
+public class LikeWriteBehindQueue implements AutoCloseable {
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final DataVersions dataVersions;
+    private final int capacity;
+    private final int batchSize;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+    private Map<FilmLike, Boolean> pending = new LinkedHashMap<>();
+    private boolean flushRequested;
+    private boolean closed;
+
+    public LikeWriteBehindQueue(FilmRepository filmRepository, UserRepository userRepository,
+                                DataVersions dataVersions, LikeWriteBehindProperties properties) {
+        this.filmRepository = filmRepository;
+        this.userRepository = userRepository;
+        this.dataVersions = dataVersions;
+        this.capacity = properties.getCapacity();
+        this.batchSize = Math.min(properties.getBatchSize(), properties.getCapacity());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Write-behind queue for likes is started with capacity {}, batch size {} and flush interval {}",
+                capacity, batchSize, properties.getFlushInterval());
+    }
+
+    public void addLike(Long filmId, Long userId) {
+        enqueue(new FilmLike(filmId, userId), true);
+    }
+
+    public void removeLike(Long filmId, Long userId) {
+        enqueue(new FilmLike(filmId, userId), false);
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<FilmLike, Boolean> batch;
+            synchronized (this) {
+                flushRequested = false;
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                requeue(batch);
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = size();
+        flush();
+        log.info("Write-behind queue for likes is drained on shutdown: {} likes flushed", remaining);
+    }
+
+    private void enqueue(FilmLike like, boolean liked) {
+        while (true) {
+            synchronized (this) {
+                if (closed) {
+                    break;
+                }
+                if (pending.size() < capacity || pending.containsKey(like)) {
+                    pending.put(like, liked);
+                    if (pending.size() >= batchSize && !flushRequested) {
+                        flushRequested = true;
+                        scheduler.execute(this::flushQuietly);
+                    }
+                    return;
+                }
+            }
+            log.debug("Write-behind queue for likes is full, flushing on the caller thread");
+            flush();
+        }
+
+        flush();
+        write(Map.of(like, liked));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush of likes failed, the batch is kept for the next attempt", e);
+        }
+    }
+
+    // the whole batch is written in one transaction, and the version of likes moves only after it is committed,
+    // so a response cached under the new version can't miss any like of the batch
+    private void write(Map<FilmLike, Boolean> batch) {
+        List<FilmLike> added = new ArrayList<>();
+        List<FilmLike> removed = new ArrayList<>();
+        batch.forEach((like, liked) -> (liked ? added : removed).add(like));
+
+        int applied;
+        try {
+            applied = filmRepository.writeLikes(added, removed);
+        } catch (DataIntegrityViolationException e) {
+            List<FilmLike> existing = filterExisting(added);
+            log.warn("Write-behind flush of likes skips {} likes of deleted films or users",
+                    added.size() - existing.size());
+            applied = filmRepository.writeLikes(existing, removed);
+        }
+        if (applied > 0) {
+            dataVersions.likesChanged();
+        }
+        log.debug("Write-behind flush of {} likes: {} applied", batch.size(), applied);
+    }
+
+    private List<FilmLike> filterExisting(List<FilmLike> likes) {
+        Set<Long> filmIds = filmRepository.getExistingIds(likes.stream()
+                .map(FilmLike::getFilmId)
+                .collect(Collectors.toSet()));
+        Set<Long> userIds = userRepository.getExistingIds(likes.stream()
+                .map(FilmLike::getUserId)
+                .collect(Collectors.toSet()));
+        return likes.stream()
+                .filter(like -> filmIds.contains(like.getFilmId()) && userIds.contains(like.getUserId()))
+                .toList();
+    }
+
+    private synchronized void requeue(Map<FilmLike, Boolean> batch) {
+        batch.forEach(pending::putIfAbsent);
+    }
+}
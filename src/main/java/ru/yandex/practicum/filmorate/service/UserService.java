@@ -2,33 +2,49 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 
 import java.time.LocalDate;
-import java.util.Collection;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+
     private final UserRepository userRepository;
+    private final FilmRepository filmRepository;
 
     public Collection<User> getAll() {
         log.trace("List of all users is requested");
         return userRepository.getAll();
     }
 
-    public User get(long userId) {
-        if (!userRepository.checkUserExists(userId)) {
-            throw new NotFoundException("User can't be found on getting by id: " + userId);
-        }
+    public Collection<User> getPage(long afterId, int limit) {
+        log.trace("Page of users is requested after id {} with limit {}", afterId, limit);
+        return userRepository.getPage(afterId, limit);
+    }
 
+    public void streamAll(Consumer<User> consumer) {
+        log.trace("Stream of all users is requested");
+        userRepository.streamAll(consumer);
+    }
+
+    public User get(long userId) {
         log.trace("User is requested by id: {}", userId);
-        return userRepository.get(userId);
+        return userRepository.get(userId)
+                .orElseThrow(() -> new NotFoundException("User can't be found on getting by id: " + userId));
     }
 
     public User create(User user) {
@@ -43,21 +59,44 @@ public class UserService {
         return createdUser;
     }
 
+    public ImportResult importAll(Iterator<User> users) {
+        ImportResult result = new ImportResult();
+        List<User> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<Long> chunkLines = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        long line = 0;
+        while (users.hasNext()) {
+            line++;
+            try {
+                User user = users.next();
+                checkUserConstraints(user);
+                chunk.add(user);
+                chunkLines.add(line);
+            } catch (ValidationException e) {
+                result.addFailure(line, e.getMessage());
+            }
+
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                importChunk(chunk, chunkLines, result);
+            }
+        }
+        importChunk(chunk, chunkLines, result);
+
+        log.info("Users are imported: {} imported, {} failed", result.getImported(), result.getFailed());
+        return result;
+    }
+
     public User update(User newUser) {
         if (newUser.getId() == null) {
             throw new ValidationException("User id can't be null on update: " + newUser);
         }
-        if (!userRepository.checkUserExists(newUser.getId())) {
-            throw new NotFoundException("User can't be found on update by id: " + newUser);
-        }
-
         checkUserConstraints(newUser);
 
         if (userRepository.checkUserExistsByEmail(newUser)) {
             throw new ValidationException("Another user already exists on update by email: " + newUser.getEmail());
         }
 
-        User updatedUser = userRepository.update(newUser);
+        User updatedUser = userRepository.update(newUser)
+                .orElseThrow(() -> new NotFoundException("User can't be found on update by id: " + newUser));
         log.info("User was updated: {}", updatedUser);
         return updatedUser;
     }
@@ -66,47 +105,85 @@ public class UserService {
         if (userId.equals(friendId)) {
             throw new ValidationException("User can't add himself as a friend on adding friend by id: " + userId);
         }
-        if (!userRepository.checkUserExists(userId)) {
-            throw new NotFoundException("User can't be found on adding friend by id: " + userId);
-        }
-        if (!userRepository.checkUserExists(friendId)) {
-            throw new NotFoundException("Friend can't be found on adding friend by id: " + friendId);
+        try {
+            userRepository.addFriend(userId, friendId);
+        } catch (DataIntegrityViolationException e) {
+            checkUserAndFriendExist(userId, friendId, "adding friend");
+            throw e;
         }
-
-        userRepository.addFriend(userId, friendId);
         log.info("User with id {} added a friend with id {}", userId, friendId);
     }
 
     public Collection<User> getFriends(Long userId) {
-        if (!userRepository.checkUserExists(userId)) {
-            throw new NotFoundException("User can't be found on getting friends by id: " + userId);
-        }
         log.trace("List of all friends is requested with user id: {}", userId);
-        return userRepository.getFriends(userId);
+        return userRepository.getFriends(userId)
+                .orElseThrow(() -> new NotFoundException("User can't be found on getting friends by id: " + userId));
     }
 
     public Collection<User> getMutualFriends(Long firstUserId, Long secondUserId) {
-        if (!userRepository.checkUserExists(firstUserId)) {
-            throw new NotFoundException("User can't be found on getting mutual friends by id: " + firstUserId);
-        }
-        if (!userRepository.checkUserExists(secondUserId)) {
-            throw new NotFoundException("User can't be found on getting mutual friends by id: " + secondUserId);
-        }
-
         log.trace("List of all mutual friends is requested with user ids: {}, {}", firstUserId, secondUserId);
-        return userRepository.getMutualFriends(firstUserId, secondUserId);
+        Collection<User> mutualFriends = userRepository.getMutualFriends(firstUserId, secondUserId);
+        if (mutualFriends.isEmpty()) {
+            if (!userRepository.checkUserExists(firstUserId)) {
+                throw new NotFoundException("User can't be found on getting mutual friends by id: " + firstUserId);
+            }
+            if (!userRepository.checkUserExists(secondUserId)) {
+                throw new NotFoundException("User can't be found on getting mutual friends by id: " + secondUserId);
+            }
+        }
+        return mutualFriends;
+    }
+
+    public Collection<User> getFriendSuggestions(Long userId, int limit) {
+        log.trace("Friend suggestions are requested with user id {} and limit {}", userId, limit);
+        return userRepository.getFriendSuggestions(userId, limit)
+                .orElseThrow(() -> new NotFoundException("User can't be found on getting friend suggestions by id: " +
+                        userId));
+    }
+
+    public Collection<Film> getRecommendations(Long userId, int limit) {
+        log.trace("Film recommendations are requested with user id {} and limit {}", userId, limit);
+        if (!userRepository.checkUserExists(userId)) {
+            throw new NotFoundException("User can't be found on getting film recommendations by id: " + userId);
+        }
+        return filmRepository.getRecommendations(userId, limit);
     }
 
     public void removeFriend(Long userId, Long friendId) {
+        if (!userRepository.removeFriend(userId, friendId)) {
+            checkUserAndFriendExist(userId, friendId, "removing friend");
+        }
+        log.info("User with id {} removed a friend with id {}", userId, friendId);
+    }
+
+    private void checkUserAndFriendExist(Long userId, Long friendId, String action) {
         if (!userRepository.checkUserExists(userId)) {
-            throw new NotFoundException("User can't be found on removing friend by id: " + userId);
+            throw new NotFoundException("User can't be found on " + action + " by id: " + userId);
         }
         if (!userRepository.checkUserExists(friendId)) {
-            throw new NotFoundException("Friend can't be found on removing friend by id: " + friendId);
+            throw new NotFoundException("Friend can't be found on " + action + " by id: " + friendId);
         }
+    }
 
-        userRepository.removeFriend(userId, friendId);
-        log.info("User with id {} removed a friend with id {}", userId, friendId);
+    private void importChunk(List<User> chunk, List<Long> chunkLines, ImportResult result) {
+        Set<String> takenEmails = new HashSet<>(userRepository.getExistingEmails(chunk.stream()
+                .map(User::getEmail)
+                .collect(Collectors.toSet())));
+
+        List<User> newUsers = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            User user = chunk.get(i);
+            if (takenEmails.add(user.getEmail())) {
+                newUsers.add(user);
+            } else {
+                result.addFailure(chunkLines.get(i), "User already exists on import by email: " + user.getEmail());
+            }
+        }
+
+        userRepository.createAll(newUsers);
+        result.addImported(newUsers.size());
+        chunk.clear();
+        chunkLines.clear();
     }
 
     private void checkUserConstraints(User user) {
@@ -16,7 +16,8 @@ CREATE TABLE IF NOT EXISTS "film" (
   "description" varchar(200) NOT NULL,
   "release_date" date NOT NULL,
   "duration" int NOT NULL,
-  "mpa_rating_id" int REFERENCES "mpa_rating" ("mpa_rating_id") ON DELETE RESTRICT
+  "mpa_rating_id" int REFERENCES "mpa_rating" ("mpa_rating_id") ON DELETE RESTRICT,
+  "likes_count" int NOT NULL DEFAULT 0
 );
 
 CREATE TABLE IF NOT EXISTS "film_genre" (
@@ -49,4 +50,27 @@ CREATE INDEX IF NOT EXISTS "user_user_friend_reverse" ON "user_user_friend" ("fr
 
 CREATE INDEX IF NOT EXISTS "user_film_like_reverse" ON "user_film_like" ("film_id", "user_id");
 
+CREATE INDEX IF NOT EXISTS "user_email" ON "user" ("email");
+
+ALTER TABLE "film" ADD COLUMN IF NOT EXISTS "likes_count" int NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS "schema_migration" (
+  "name" varchar(255) PRIMARY KEY
+);
+
+-- likes_count is backfilled only once, the empty "pending" row set skips the scan of likes afterwards
+MERGE INTO "film" AS f
+USING (
+  SELECT l."film_id", COUNT(*) AS "likes"
+  FROM (SELECT 1 AS "pending" FROM DUAL
+        WHERE NOT EXISTS (SELECT 1 FROM "schema_migration" WHERE "name" = 'film_likes_count')) AS p
+  JOIN "user_film_like" AS l ON TRUE
+  GROUP BY l."film_id"
+) AS c ON f."film_id" = c."film_id"
+WHEN MATCHED AND f."likes_count" <> c."likes" THEN UPDATE SET "likes_count" = c."likes";
+
+MERGE INTO "schema_migration" ("name") KEY ("name") VALUES ('film_likes_count');
+
+CREATE INDEX IF NOT EXISTS "film_likes_count" ON "film" ("likes_count" DESC, "film_id");
+
 COMMIT;
\ No newline at end of file
@@ -0,0 +1,48 @@
+BEGIN TRANSACTION;
+
+CREATE TABLE IF NOT EXISTS "user" (
+  "user_id" BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH ${first_id} INCREMENT BY ${shard_count}) PRIMARY KEY,
+  "email" varchar(255) NOT NULL,
+  "login" varchar(255) NOT NULL,
+  "name" varchar(255) NOT NULL,
+  "birthday" date NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS "user_user_friend" (
+  "user_id" bigint REFERENCES "user" ("user_id") ON DELETE CASCADE,
+  "friend_id" bigint NOT NULL,
+  PRIMARY KEY ("user_id", "friend_id")
+);
+
+CREATE TABLE IF NOT EXISTS "user_film_like" (
+  "user_id" bigint REFERENCES "user" ("user_id") ON DELETE CASCADE,
+  "film_id" bigint NOT NULL,
+  PRIMARY KEY ("user_id", "film_id")
+);
+
+CREATE TABLE IF NOT EXISTS "film_like_count" (
+  "film_id" bigint PRIMARY KEY,
+  "likes" bigint NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS "schema_migration" (
+  "name" varchar(255) PRIMARY KEY
+);
+
+-- the counts are backfilled only once, the empty "pending" row set skips the scan of likes afterwards
+INSERT INTO "film_like_count" ("film_id", "likes")
+SELECT l."film_id", COUNT(*)
+FROM (SELECT 1 AS "pending" FROM DUAL
+      WHERE NOT EXISTS (SELECT 1 FROM "schema_migration" WHERE "name" = 'film_like_count')) AS p
+JOIN "user_film_like" AS l ON TRUE
+GROUP BY l."film_id";
+
+MERGE INTO "schema_migration" ("name") KEY ("name") VALUES ('film_like_count');
+
+CREATE INDEX IF NOT EXISTS "user_user_friend_reverse" ON "user_user_friend" ("friend_id", "user_id");
+
+CREATE INDEX IF NOT EXISTS "user_film_like_reverse" ON "user_film_like" ("film_id", "user_id");
+
+CREATE INDEX IF NOT EXISTS "user_email" ON "user" ("email");
+
+COMMIT;
@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.cache.CacheMetricsRegistrar;
+import org.springframework.boot.actuate.metrics.cache.CaffeineCacheMeterBinderProvider;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.FilmFilterIndex;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.LikeMatrixIndex;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreRepository;
+import ru.yandex.practicum.filmorate.repository.genre.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.repository.user.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+import ru.yandex.practicum.filmorate.service.DataVersions;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({CacheConfig.class, JdbcFilmRepository.class, JdbcUserRepository.class, CachedMpaRepository.class,
+        JdbcMpaRepository.class, CachedGenreRepository.class, JdbcGenreRepository.class, LikeMatrixIndex.class,
+        FilmSearchIndex.class, FilmFilterIndex.class, DataVersions.class})
+// caches are updated after commit, so the tests commit their writes and get a fresh database each
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("CacheConfig integration tests")
+class CacheConfigTest {
+    private static final long TEST_FILM_ID = 1L;
+    private static final long TEST_USER_ID = 1L;
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final NamedParameterJdbcOperations jdbc;
+    private final PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("FilmRepository.get() is served from the cache after the first call.")
+    void filmGetIsCached() {
+        Film film = filmRepository.get(TEST_FILM_ID).orElseThrow();
+        renameFilm(TEST_FILM_ID, "renamed");
+
+        assertThat(filmRepository.get(TEST_FILM_ID).orElseThrow()).isEqualTo(film).isNotSameAs(film);
+        assertThat(getStats(CacheConfig.FILMS).hitCount()).isEqualTo(1);
+        assertThat(getStats(CacheConfig.FILMS).missCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Hits and misses of the films and users caches are exposed as cache metrics.")
+    void cacheMetricsAreBound() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CacheMetricsRegistrar registrar = new CacheMetricsRegistrar(meterRegistry,
+                List.of(new CaffeineCacheMeterBinderProvider()));
+        assertThat(registrar.bindCacheToRegistry(cacheManager.getCache(CacheConfig.FILMS))).isTrue();
+        assertThat(registrar.bindCacheToRegistry(cacheManager.getCache(CacheConfig.USERS))).isTrue();
+
+        filmRepository.get(TEST_FILM_ID).orElseThrow();
+        filmRepository.get(TEST_FILM_ID).orElseThrow();
+
+        assertThat(meterRegistry.get("cache.gets").tags("cache", CacheConfig.FILMS, "result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tags("cache", CacheConfig.FILMS, "result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Changes of a film returned by FilmRepository.get() do not reach the cache.")
+    void filmGetReturnsCopies() {
+        Film film = filmRepository.get(TEST_FILM_ID).orElseThrow();
+        String name = film.getName();
+        film.setName("changed");
+        film.getGenres().clear();
+
+        Film cached = filmRepository.get(TEST_FILM_ID).orElseThrow();
+        assertThat(cached.getName()).isEqualTo(name);
+        assertThat(cached.getGenres()).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("Evictions made inside a transaction are applied after it commits.")
+    void evictionsWaitForCommit() {
+        filmRepository.get(TEST_FILM_ID).orElseThrow();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            filmRepository.addLike(TEST_FILM_ID, TEST_USER_ID);
+            assertThat(cacheManager.getCache(CacheConfig.FILMS).get(TEST_FILM_ID)).isNotNull();
+        });
+
+        assertThat(cacheManager.getCache(CacheConfig.FILMS).get(TEST_FILM_ID)).isNull();
+    }
+
+    @Test
+    @DisplayName("FilmRepository.get() does not cache missing films.")
+    void filmGetDoesNotCacheMissing() {
+        assertThat(filmRepository.get(-1L)).isEmpty();
+        assertThat(cacheManager.getCache(CacheConfig.FILMS).get(-1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("FilmRepository write methods evict the film from the cache.")
+    void filmWritesEvict() {
+        filmRepository.get(TEST_FILM_ID).orElseThrow();
+        renameFilm(TEST_FILM_ID, "renamed");
+        filmRepository.addLike(TEST_FILM_ID, TEST_USER_ID);
+        assertThat(filmRepository.get(TEST_FILM_ID).orElseThrow().getName()).isEqualTo("renamed");
+
+        filmRepository.removeLike(TEST_FILM_ID, TEST_USER_ID);
+        assertThat(cacheManager.getCache(CacheConfig.FILMS).get(TEST_FILM_ID)).isNull();
+
+        Film film = filmRepository.get(TEST_FILM_ID).orElseThrow().toBuilder().name("updated").build();
+        filmRepository.update(film);
+        assertThat(filmRepository.get(TEST_FILM_ID).orElseThrow().getName()).isEqualTo("updated");
+
+        filmRepository.delete(TEST_FILM_ID);
+        assertThat(filmRepository.get(TEST_FILM_ID)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("UserRepository write methods evict the user from the cache.")
+    void userWritesEvict() {
+        User user = userRepository.get(TEST_USER_ID).orElseThrow();
+        assertThat(userRepository.get(TEST_USER_ID).orElseThrow()).isEqualTo(user).isNotSameAs(user);
+
+        userRepository.update(user.toBuilder().name("updated").build());
+        assertThat(userRepository.get(TEST_USER_ID).orElseThrow().getName()).isEqualTo("updated");
+
+        userRepository.delete(TEST_USER_ID);
+        assertThat(userRepository.get(TEST_USER_ID)).isEmpty();
+    }
+
+    private void renameFilm(long filmId, String name) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("film_id", filmId);
+        params.addValue("name", name);
+        jdbc.update("UPDATE \"film\" SET \"name\" = :name WHERE \"film_id\" = :film_id;", params);
+    }
+
+    private CacheStats getStats(String cacheName) {
+        return ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager.getCache(cacheName).getNativeCache())
+                .stats();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("HttpLogConfig tests")
+class HttpLogConfigTest {
+    private final HttpLogConfig config = new HttpLogConfig();
+
+    @Test
+    @DisplayName("requestCondition() samples requests by the configured rate.")
+    void samplesRequests() {
+        HttpLogProperties properties = new HttpLogProperties();
+        HttpRequest request = mock(HttpRequest.class);
+
+        properties.setSampleRate(1.0);
+        Predicate<HttpRequest> all = config.requestCondition(properties);
+        properties.setSampleRate(0.0);
+        Predicate<HttpRequest> none = config.requestCondition(properties);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(all.test(request)).isTrue();
+            assertThat(none.test(request)).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("AsyncHttpLogWriter drains queued entries on close() and drops entries written after it.")
+    void writerDrainsAndDrops() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AsyncHttpLogWriter writer = config.asyncHttpLogWriter(new HttpLogProperties(), meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            writer.write(null, "request " + i);
+        }
+        writer.close();
+        writer.write(null, "late request");
+
+        assertThat(writer.getQueued()).isZero();
+        assertThat(writer.getDropped()).isEqualTo(1);
+        assertThat(meterRegistry.get(AsyncHttpLogWriter.DROPPED).counter().count()).isEqualTo(1);
+    }
+}
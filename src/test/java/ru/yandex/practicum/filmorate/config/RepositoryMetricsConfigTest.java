@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.repository.film.LikeMatrixIndex;
+import ru.yandex.practicum.filmorate.repository.user.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@Import({RepositoryMetricsConfig.class, SimpleMeterRegistry.class, JdbcUserRepository.class, LikeMatrixIndex.class})
+@TestPropertySource(properties = "filmorate.metrics.repository.enabled=true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("RepositoryMetricsConfig integration tests")
+class RepositoryMetricsConfigTest {
+    private static final long TEST_USER_ID = 1L;
+
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void clearMeters() {
+        meterRegistry.clear();
+    }
+
+    @Test
+    @DisplayName("Repository calls are timed and their rows are counted by repository and method.")
+    void recordsCallsAndRows() {
+        userRepository.get(TEST_USER_ID);
+        userRepository.get(-1L);
+        userRepository.getAll();
+
+        assertThat(meterRegistry.get(RepositoryMetricsAspect.CALLS)
+                .tags("repository", "JdbcUserRepository", "method", "get", "outcome", "success")
+                .timer()
+                .count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get(RepositoryMetricsAspect.ROWS)
+                .tags("repository", "JdbcUserRepository", "method", "get")
+                .summary()
+                .totalAmount())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(RepositoryMetricsAspect.ROWS)
+                .tags("repository", "JdbcUserRepository", "method", "getAll")
+                .summary()
+                .totalAmount())
+                .isEqualTo(userRepository.getAll().size());
+    }
+
+    @Test
+    @DisplayName("Failed repository calls are counted by exception.")
+    void recordsErrors() {
+        assertThatThrownBy(() -> userRepository.addFriend(TEST_USER_ID, -1L))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(meterRegistry.get(RepositoryMetricsAspect.ERRORS)
+                .tags("repository", "JdbcUserRepository", "method", "addFriend")
+                .counter()
+                .count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(RepositoryMetricsAspect.CALLS)
+                .tags("method", "addFriend", "outcome", "error")
+                .timer()
+                .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("countRows() maps repository results to row counts.")
+    void countRows() {
+        assertThat(RepositoryMetricsAspect.countRows(Optional.empty())).isZero();
+        assertThat(RepositoryMetricsAspect.countRows(List.of(1, 2, 3))).isEqualTo(3);
+        assertThat(RepositoryMetricsAspect.countRows(true)).isEqualTo(1);
+        assertThat(RepositoryMetricsAspect.countRows(7)).isEqualTo(7);
+        assertThat(RepositoryMetricsAspect.countRows(null)).isNegative();
+    }
+}
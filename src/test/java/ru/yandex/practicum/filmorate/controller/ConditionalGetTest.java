@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.yandex.practicum.filmorate.service.DataVersions;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.GenreService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Conditional GET tests")
+class ConditionalGetTest {
+    private FilmService filmService;
+    private GenreService genreService;
+    private DataVersions dataVersions;
+    private FilmController filmController;
+    private GenreController genreController;
+
+    @BeforeEach
+    void setUp() {
+        filmService = mock(FilmService.class);
+        when(filmService.getFilmCount()).thenReturn(100L);
+        genreService = mock(GenreService.class);
+        dataVersions = new DataVersions();
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonResponseCache responseCache = new JsonResponseCache(objectMapper);
+        filmController = new FilmController(filmService, objectMapper, dataVersions, responseCache,
+                new JsonFragmentCache(objectMapper, Optional.empty(), new SimpleMeterRegistry()));
+        genreController = new GenreController(genreService, dataVersions, responseCache);
+    }
+
+    @Test
+    @DisplayName("getMostPopular() answers 304 to a matching If-None-Match without querying films.")
+    void popularIsNotModified() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(filmController.getMostPopular(10, request(null, response))).isNotNull();
+        String etag = response.getHeader("ETag");
+
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        assertThat(filmController.getMostPopular(10, request(etag, notModified))).isNull();
+
+        assertThat(notModified.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        verify(filmService, times(1)).getMostPopular(10);
+    }
+
+    @Test
+    @DisplayName("getMostPopular() answers 200 with a new ETag after films or likes change.")
+    void popularIsModifiedByWrites() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filmController.getMostPopular(10, request(null, response));
+        String etag = response.getHeader("ETag");
+
+        dataVersions.likesChanged();
+        MockHttpServletResponse afterLike = new MockHttpServletResponse();
+        filmController.getMostPopular(10, request(etag, afterLike));
+
+        assertThat(afterLike.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(afterLike.getHeader("ETag")).isNotEqualTo(etag);
+
+        dataVersions.filmsChanged();
+        MockHttpServletResponse afterFilm = new MockHttpServletResponse();
+        filmController.getMostPopular(10, request(afterLike.getHeader("ETag"), afterFilm));
+
+        assertThat(afterFilm.getStatus()).isEqualTo(HttpStatus.OK.value());
+        verify(filmService, times(3)).getMostPopular(10);
+    }
+
+    @Test
+    @DisplayName("getMostPopular() shares one cached body between counts above the number of films.")
+    void popularCountIsClampedToFilmCount() throws IOException {
+        when(filmService.getFilmCount()).thenReturn(20L);
+
+        filmController.getMostPopular(50, request(null, new MockHttpServletResponse()));
+        filmController.getMostPopular(Long.MAX_VALUE, request(null, new MockHttpServletResponse()));
+        filmController.getMostPopular(10, request(null, new MockHttpServletResponse()));
+
+        verify(filmService, times(1)).getMostPopular(20);
+        verify(filmService, times(1)).getMostPopular(10);
+    }
+
+    @Test
+    @DisplayName("getAll() of genres answers 304 to a matching If-None-Match without querying genres.")
+    void genresAreNotModified() throws IOException {
+        when(genreService.getAll()).thenReturn(List.of());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        genreController.getAll(request(null, response));
+
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        assertThat(genreController.getAll(request(response.getHeader("ETag"), notModified))).isNull();
+
+        assertThat(notModified.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        verify(genreService, times(1)).getAll();
+    }
+
+    @Test
+    @DisplayName("getAll() of genres is encoded again under a new weak ETag after reference data is refreshed.")
+    void genresAreModifiedByRefresh() throws IOException {
+        when(genreService.getAll()).thenReturn(List.of());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        genreController.getAll(request(null, response));
+        String etag = response.getHeader("ETag");
+
+        dataVersions.referenceChanged();
+        MockHttpServletResponse afterRefresh = new MockHttpServletResponse();
+        assertThat(genreController.getAll(request(etag, afterRefresh))).isNotNull();
+
+        assertThat(etag).startsWith("W/");
+        assertThat(afterRefresh.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(afterRefresh.getHeader("ETag")).isNotEqualTo(etag);
+        verify(genreService, times(2)).getAll();
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
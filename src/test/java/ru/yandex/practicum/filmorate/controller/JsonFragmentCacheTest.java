@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.config.CacheConfig;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.FilmFilterIndex;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.JdbcFilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.LikeMatrixIndex;
+import ru.yandex.practicum.filmorate.repository.user.JdbcUserRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({CacheConfig.class, JacksonAutoConfiguration.class, SimpleMeterRegistry.class, JsonFragmentCache.class,
+        JdbcFilmRepository.class, JdbcUserRepository.class, LikeMatrixIndex.class, FilmSearchIndex.class,
+        FilmFilterIndex.class})
+// fragments are put and evicted after commit, so the tests commit their writes and get a fresh database each
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("JsonFragmentCache integration tests")
+class JsonFragmentCacheTest {
+    private static final long TEST_FILM_ID = 1L;
+
+    private final JsonFragmentCache fragmentCache;
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("writeFilms() and writeUsers() produce the same JSON as Jackson and cache a fragment per entity.")
+    void writesSameJsonAsJackson() throws IOException {
+        Collection<Film> films = filmRepository.getAll();
+        Collection<User> users = userRepository.getAll();
+
+        assertThat(fragmentCache.writeFilms(films)).isEqualTo(objectMapper.writeValueAsBytes(films));
+        assertThat(fragmentCache.writeFilms(films)).isEqualTo(objectMapper.writeValueAsBytes(films));
+        assertThat(fragmentCache.writeUsers(users)).isEqualTo(objectMapper.writeValueAsBytes(users));
+        assertThat(fragmentCache.writeFilms(List.of())).isEqualTo("[]".getBytes());
+
+        assertThat(cacheManager.getCache(CacheConfig.FILM_JSON).get(TEST_FILM_ID)).isNotNull();
+        assertThat(meterRegistry.get(JsonFragmentCache.BYTES).tag("cache", CacheConfig.FILM_JSON).gauge().value())
+                .isPositive();
+    }
+
+    @Test
+    @DisplayName("Film update evicts the film fragment.")
+    void updateEvictsFragment() throws IOException {
+        fragmentCache.writeFilms(filmRepository.getAll());
+        Film film = filmRepository.get(TEST_FILM_ID).orElseThrow().toBuilder().name("updated").build();
+        filmRepository.update(film);
+
+        assertThat(cacheManager.getCache(CacheConfig.FILM_JSON).get(TEST_FILM_ID)).isNull();
+        Collection<Film> films = filmRepository.getAll();
+        assertThat(fragmentCache.writeFilms(films)).isEqualTo(objectMapper.writeValueAsBytes(films));
+    }
+
+    @Test
+    @DisplayName("A fragment of an older film state is not served for the current one.")
+    void staleFragmentIsNotServed() throws IOException {
+        Film film = filmRepository.get(TEST_FILM_ID).orElseThrow();
+        fragmentCache.writeFilms(List.of(film));
+        Film renamedFilm = film.copy();
+        renamedFilm.setName("renamed");
+
+        assertThat(fragmentCache.writeFilms(List.of(renamedFilm)))
+                .isEqualTo(objectMapper.writeValueAsBytes(List.of(renamedFilm)));
+        assertThat(fragmentCache.writeFilms(List.of(renamedFilm)))
+                .isEqualTo(objectMapper.writeValueAsBytes(List.of(renamedFilm)));
+    }
+}
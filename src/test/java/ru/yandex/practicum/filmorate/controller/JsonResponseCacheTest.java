@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JsonResponseCache tests")
+class JsonResponseCacheTest {
+    private final JsonResponseCache responseCache = new JsonResponseCache(new ObjectMapper());
+
+    @Test
+    @DisplayName("get() encodes a body once per version and serves the same bytes until the version changes.")
+    void encodesOncePerVersion() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<List<String>> body = () -> List.of("value " + calls.incrementAndGet());
+
+        byte[] first = responseCache.get("key", "1", request(null), body).getBody();
+        byte[] second = responseCache.get("key", "1", request(null), body).getBody();
+        byte[] third = responseCache.get("key", "2", request(null), body).getBody();
+
+        assertThat(calls).hasValue(2);
+        assertThat(second).isSameAs(first);
+        assertThat(new String(first)).isEqualTo("[\"value 1\"]");
+        assertThat(new String(third)).isEqualTo("[\"value 2\"]");
+    }
+
+    @Test
+    @DisplayName("get() serves gzipped bytes of large bodies to clients accepting gzip.")
+    void servesGzipToAcceptingClients() throws IOException {
+        List<String> body = Collections.nCopies(1000, "value");
+
+        ResponseEntity<byte[]> plain = responseCache.get("key", "1", request(null), () -> body);
+        ResponseEntity<byte[]> gzipped = responseCache.get("key", "1", request("gzip, deflate"), () -> body);
+
+        assertThat(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzipped.getBody()).hasSizeLessThan(plain.getBody().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain.getBody());
+        }
+    }
+
+    private static WebRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request);
+    }
+}
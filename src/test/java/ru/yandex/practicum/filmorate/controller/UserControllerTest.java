@@ -1,23 +1,39 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.ImportFailure;
+import ru.yandex.practicum.filmorate.model.ImportResult;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.repository.film.InMemoryFilmRepository;
 import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class UserControllerTest {
+    ObjectMapper objectMapper;
     UserController userController;
     User verifiedUser;
 
     @BeforeEach
     void setUp() {
-        userController = new UserController(new UserService(new InMemoryUserRepository()));
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        userController = new UserController(new UserService(new InMemoryUserRepository(), new InMemoryFilmRepository()),
+                objectMapper, new JsonFragmentCache(objectMapper, Optional.empty(), new SimpleMeterRegistry()));
         verifiedUser = User.builder()
                 .id(1L)
                 .email("email@domen.com")
@@ -27,20 +43,46 @@ class UserControllerTest {
                 .build();
     }
 
+    Collection<User> getAllUsers() throws IOException {
+        return readUsers(userController.getAll(100, 0, false));
+    }
+
+    List<User> readUsers(ResponseEntity<byte[]> response) throws IOException {
+        return objectMapper.readValue(response.getBody(), new TypeReference<>() {
+        });
+    }
+
     @Test
-    void createUser() {
+    void createUser() throws IOException {
         userController.create(verifiedUser);
-        assertEquals(1, userController.getAll().size());
-        assertEquals(verifiedUser.getName(), userController.getAll().stream().findFirst().get().getName());
+        assertEquals(1, getAllUsers().size());
+        assertEquals(verifiedUser.getName(), getAllUsers().stream().findFirst().get().getName());
     }
 
     @Test
-    void updateFilm() {
+    void updateFilm() throws IOException {
         userController.create(verifiedUser);
         userController.update(verifiedUser.toBuilder().login("Different").build());
 
-        assertEquals(1, userController.getAll().size());
-        assertNotEquals(verifiedUser.getLogin(), userController.getAll().stream().findFirst().get().getLogin());
+        assertEquals(1, getAllUsers().size());
+        assertNotEquals(verifiedUser.getLogin(), getAllUsers().stream().findFirst().get().getLogin());
+    }
+
+    @Test
+    void getAllIsPaginated() throws IOException {
+        userController.create(verifiedUser.toBuilder().email("first@domen.com").build());
+        userController.create(verifiedUser.toBuilder().email("second@domen.com").build());
+        userController.create(verifiedUser.toBuilder().email("third@domen.com").build());
+
+        ResponseEntity<byte[]> firstPage = userController.getAll(2, 0, false);
+        assertEquals(2, readUsers(firstPage).size());
+        assertEquals("2", firstPage.getHeaders().getFirst(Pagination.NEXT_CURSOR_HEADER));
+
+        ResponseEntity<byte[]> lastPage = userController.getAll(2, 2, false);
+        assertEquals(1, readUsers(lastPage).size());
+        assertNull(lastPage.getHeaders().getFirst(Pagination.NEXT_CURSOR_HEADER));
+
+        assertEquals(3, readUsers(userController.getAll(1, 0, true)).size());
     }
 
     @Test
@@ -59,11 +101,11 @@ class UserControllerTest {
     }
 
     @Test
-    void nameCanBeEmpty() {
+    void nameCanBeEmpty() throws IOException {
         User user = verifiedUser.toBuilder().name(null).build();
         assertDoesNotThrow(() -> userController.create(user));
 
-        User userFromController = userController.getAll().stream().findFirst().get();
+        User userFromController = getAllUsers().stream().findFirst().get();
         assertEquals(verifiedUser.getLogin(), userFromController.getName());
     }
 
@@ -72,4 +114,22 @@ class UserControllerTest {
         User user = verifiedUser.toBuilder().birthday(LocalDate.of(LocalDate.now().getYear() + 1, 1, 1)).build();
         assertThrows(ValidationException.class, () -> userController.create(user));
     }
-}
\ No newline at end of file
+
+    @Test
+    void importUsers() throws IOException {
+        userController.create(verifiedUser);
+        String body = "{\"email\":\"first@domen.com\",\"login\":\"First\",\"birthday\":\"1990-01-01\"}\n" +
+                "{\"email\":\"email@domen.com\",\"login\":\"Duplicate\",\"birthday\":\"1990-01-01\"}\n" +
+                "{\"email\":\"second@domen.com\",\"login\":\"With space\",\"birthday\":\"1990-01-01\"}\n" +
+                "{\"email\":\"broken@domen.com\",\"login\":\n" +
+                "{\"email\":\"third@domen.com\",\"login\":\"Third\",\"birthday\":\"1990-01-01\"}\n";
+
+        ImportResult result = userController.importAll(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, result.getImported());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(2L, 3L, 4L), result.getFailures().stream().map(ImportFailure::getLine).sorted().toList());
+        assertEquals(3, getAllUsers().size());
+        assertEquals("First", userController.get(2).getName());
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FilmFilterIndex tests")
+class FilmFilterIndexTest {
+
+    private static FilmFilterIndex getTestIndex() {
+        FilmFilterIndex index = new FilmFilterIndex();
+        index.put(1L, 1960, 1, List.of(1, 2));
+        index.put(2L, 1995, 3, List.of(2));
+        index.put(3L, 2000, 3, List.of(6));
+        index.put(4L, 2010, null, List.of());
+        return index;
+    }
+
+    @Test
+    @DisplayName("find() ORs values of one filter and ANDs different filters.")
+    void find() {
+        FilmFilterIndex index = getTestIndex();
+
+        assertThat(index.find(FilmFilter.builder().build(), 0, 10)).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(index.find(FilmFilter.builder().genreIds(Set.of(2, 6)).build(), 0, 10))
+                .containsExactly(1L, 2L, 3L);
+        assertThat(index.find(FilmFilter.builder().genreIds(Set.of(2, 6)).mpaIds(Set.of(3)).build(), 0, 10))
+                .containsExactly(2L, 3L);
+        assertThat(index.find(FilmFilter.builder().mpaIds(Set.of(3)).yearFrom(1990).yearTo(1999).build(), 0, 10))
+                .containsExactly(2L);
+        assertThat(index.find(FilmFilter.builder().yearFrom(1990).build(), 2, 1)).containsExactly(3L);
+        assertThat(index.find(FilmFilter.builder().genreIds(Set.of(5)).build(), 0, 10)).isEmpty();
+        assertThat(index.find(FilmFilter.builder().yearFrom(2000).yearTo(1990).build(), 0, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findTop() orders matching films by likes and then by id.")
+    void findTop() {
+        FilmFilterIndex index = getTestIndex();
+        Map<Long, Integer> likes = Map.of(1L, 5, 3L, 7, 4L, 7);
+
+        assertThat(index.findTop(FilmFilter.builder().build(), filmId -> likes.getOrDefault(filmId, 0), 3))
+                .containsExactly(3L, 4L, 1L);
+        assertThat(index.findTop(FilmFilter.builder().genreIds(Set.of(2)).build(),
+                filmId -> likes.getOrDefault(filmId, 0), 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("put(), remove() and restore() move a film between bitmaps.")
+    void putRemoveAndRestore() {
+        FilmFilterIndex index = getTestIndex();
+        FilmFilterIndex.FilmAttributes previous = index.put(2L, 2001, 1, List.of(6));
+
+        assertThat(index.find(FilmFilter.builder().genreIds(Set.of(6)).build(), 0, 10)).containsExactly(2L, 3L);
+        assertThat(index.find(FilmFilter.builder().mpaIds(Set.of(3)).build(), 0, 10)).containsExactly(3L);
+
+        index.restore(2L, previous);
+        assertThat(index.find(FilmFilter.builder().genreIds(Set.of(6)).build(), 0, 10)).containsExactly(3L);
+        assertThat(index.find(FilmFilter.builder().yearTo(1999).build(), 0, 10)).containsExactly(1L, 2L);
+
+        assertThat(index.remove(4L)).usingRecursiveComparison()
+                .isEqualTo(new FilmFilterIndex.FilmAttributes(2010, null, new int[0]));
+        assertThat(index.remove(4L)).isNull();
+        assertThat(index.getFilmCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("loader() rebuilds bitmaps that span many chunks and keeps them writable.")
+    void loader() {
+        FilmFilterIndex index = getTestIndex();
+        int filmCount = 300_000;
+
+        FilmFilterIndex.Loader loader = index.loader();
+        for (long filmId = 1; filmId <= filmCount; filmId++) {
+            loader.add(filmId, 1900 + (int) (filmId % 100), (int) (filmId % 5), (int) (filmId % 3));
+            if (filmId % 1000 == 0) {
+                loader.add(filmId, 1900 + (int) (filmId % 100), (int) (filmId % 5), 10);
+            }
+        }
+        loader.complete();
+
+        assertThat(index.getFilmCount()).isEqualTo(filmCount);
+        assertThat(index.find(FilmFilter.builder().genreIds(Set.of(10)).build(), 0, filmCount))
+                .containsExactly(LongStream.rangeClosed(1, filmCount / 1000).map(i -> i * 1000).toArray());
+        assertThat(index.find(FilmFilter.builder().genreIds(Set.of(0)).mpaIds(Set.of(0)).build(), 0, filmCount))
+                .containsExactly(LongStream.rangeClosed(1, filmCount / 15).map(i -> i * 15).toArray());
+        assertThat(index.find(FilmFilter.builder().yearFrom(1910).yearTo(1919).build(), 200_000, 3))
+                .containsExactly(200_010L, 200_011L, 200_012L);
+
+        index.remove(3000L);
+        index.put(filmCount + 1L, 1950, 0, List.of(10));
+        assertThat(index.find(FilmFilter.builder().genreIds(Set.of(10)).build(), 290_000, 10))
+                .containsExactly(291_000L, 292_000L, 293_000L, 294_000L, 295_000L, 296_000L, 297_000L, 298_000L,
+                        299_000L, 300_000L);
+        assertThat(index.find(FilmFilter.builder().genreIds(Set.of(10)).build(), 2000, 2))
+                .containsExactly(4000L, 5000L);
+        assertThat(index.findTop(FilmFilter.builder().genreIds(Set.of(10)).build(), filmId -> (int) (filmId % 7), 2))
+                .containsExactly(1000L, 8000L);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FilmPopularityIndex tests")
+class FilmPopularityIndexTest {
+
+    @Test
+    @DisplayName("getTop() orders films by likes descending and then by id.")
+    void getTop() {
+        FilmPopularityIndex index = new FilmPopularityIndex(false);
+        index.put(1L, 2);
+        index.put(2L, 5);
+        index.put(3L, 2);
+        index.put(4L, 1);
+
+        assertThat(index.getTop(3)).containsExactly(2L, 1L, 3L);
+        assertThat(index.getTop(10)).containsExactly(2L, 1L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("adjust() moves films in the ranking and drops unliked films unless retained.")
+    void adjust() {
+        FilmPopularityIndex index = new FilmPopularityIndex(false);
+        index.adjust(1L, 1);
+        index.adjust(2L, 1);
+        index.adjust(2L, 1);
+
+        assertThat(index.getTop(2)).containsExactly(2L, 1L);
+
+        index.adjust(2L, -2);
+        assertThat(index.getTop(2)).containsExactly(1L);
+
+        FilmPopularityIndex retainingIndex = new FilmPopularityIndex(true);
+        retainingIndex.put(1L, 0);
+        retainingIndex.adjust(2L, 1);
+        retainingIndex.adjust(2L, -1);
+
+        assertThat(retainingIndex.getTop(2)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("remove() drops the film and returns its likes count.")
+    void remove() {
+        FilmPopularityIndex index = new FilmPopularityIndex(false);
+        index.put(1L, 3);
+        index.put(2L, 1);
+
+        assertThat(index.remove(1L)).isEqualTo(3);
+        assertThat(index.remove(1L)).isZero();
+        assertThat(index.getTop(2)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("adjust() from many threads keeps every like and one ranking entry per film.")
+    void concurrentAdjust() throws Exception {
+        FilmPopularityIndex index = new FilmPopularityIndex(false);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 500; round++) {
+                        for (long filmId = 1; filmId <= 20; filmId++) {
+                            index.adjust(filmId, filmId == 20 ? 2 : 1);
+                            index.getTop(5);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(index.getLikes(1L)).isEqualTo(4000);
+        assertThat(index.getLikes(20L)).isEqualTo(8000);
+        assertThat(index.getTop(100)).containsExactlyElementsOf(
+                LongStream.concat(LongStream.of(20L), LongStream.rangeClosed(1, 19)).boxed().toList());
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FilmSearchIndex tests")
+class FilmSearchIndexTest {
+
+    @Test
+    @DisplayName("tokenize() splits on non-letters and lower-cases Latin and Cyrillic text.")
+    void tokenize() {
+        assertThat(FilmSearchIndex.tokenize("Ёжик в тумане, 1975 (Hedgehog-in-the-Fog)"))
+                .containsExactly("ежик", "в", "тумане", "1975", "hedgehog", "in", "the", "fog");
+        assertThat(FilmSearchIndex.tokenize(" ,.- ")).isEmpty();
+        assertThat(FilmSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("search() matches all words, the last one by prefix, and ranks name and exact matches higher.")
+    void search() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.put(1L, "Matrix", "hackers and kung fu");
+        index.put(2L, "Hackers", "a story of the matrix reloaded");
+        index.put(3L, "Matrix Reloaded", "more kung fu");
+        index.put(4L, "Ёлки", "новогодняя комедия");
+
+        assertThat(index.search("matrix", 10)).containsExactly(1L, 3L, 2L);
+        assertThat(index.search("hack", 10)).containsExactly(2L, 1L);
+        assertThat(index.search("matrix reload", 10)).containsExactly(3L, 2L);
+        assertThat(index.search("kung", 1)).containsExactly(1L);
+        assertThat(index.search("елки комед", 10)).containsExactly(4L);
+        assertThat(index.search("matrix ёлки", 10)).isEmpty();
+        assertThat(index.search("reload matrix", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("put(), remove() and restore() replace the terms of a film and drop unused terms.")
+    void putRemoveAndRestore() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.put(1L, "Matrix", "kung fu");
+        FilmSearchIndex.FilmTerms previous = index.put(1L, "Hackers", "kung fu");
+
+        assertThat(index.search("matrix", 10)).isEmpty();
+        assertThat(index.search("hackers", 10)).containsExactly(1L);
+
+        index.restore(1L, previous);
+        assertThat(index.search("matrix", 10)).containsExactly(1L);
+        assertThat(index.search("hackers", 10)).isEmpty();
+
+        index.remove(1L);
+        assertThat(index.search("kung", 10)).isEmpty();
+        assertThat(index.getTermCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("loader() rebuilds the index from films in id order.")
+    void loader() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.put(9L, "Stale", "film");
+
+        FilmSearchIndex.Loader loader = index.loader();
+        loader.add(1L, "Matrix", "film");
+        loader.add(2L, "Matrix Reloaded", "film");
+        loader.complete();
+
+        assertThat(index.search("film", 10)).containsExactly(1L, 2L);
+        assertThat(index.search("stale", 10)).isEmpty();
+        index.put(3L, "Matrix Revolutions", "film");
+        assertThat(index.search("matrix re", 10)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    @DisplayName("appender() merges a batch of new films into the existing posting lists.")
+    void appender() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.put(2L, "Matrix", "film");
+
+        FilmSearchIndex.Loader appender = index.appender();
+        appender.add(3L, "Matrix Reloaded", "film");
+        appender.add(1L, "Hackers", "film");
+        appender.complete();
+
+        assertThat(index.search("film", 10)).containsExactly(1L, 2L, 3L);
+        assertThat(index.search("matrix", 10)).containsExactly(2L, 3L);
+        index.remove(3L);
+        assertThat(index.search("reloaded", 10)).isEmpty();
+        assertThat(index.search("matrix", 10)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("search() expands a prefix to the terms with the most films first.")
+    void prefixExpansionPrefersLargeTerms() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        for (long filmId = 1; filmId <= 40; filmId++) {
+            index.put(filmId, String.format("ab%02d", filmId), "");
+        }
+        for (long filmId = 41; filmId <= 45; filmId++) {
+            index.put(filmId, "abzz", "");
+        }
+
+        assertThat(index.search("ab", 100)).hasSize(36).contains(41L, 42L, 43L, 44L, 45L);
+    }
+}
@@ -0,0 +1,166 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("InMemoryFilmRepository concurrency tests")
+class InMemoryFilmRepositoryTest {
+    private static final int THREADS = 32;
+    private static final int FILMS_PER_THREAD = 500;
+    private static final int LIKES_PER_THREAD = 2_000;
+
+    private InMemoryFilmRepository repository;
+
+    static Film getTestFilm() {
+        return Film.builder()
+                .name("test")
+                .description("test")
+                .releaseDate(LocalDate.parse("1960-03-21"))
+                .duration(100)
+                .mpa(new Mpa(1, "G"))
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryFilmRepository();
+    }
+
+    @Test
+    @DisplayName("create() never hands out duplicate ids under concurrent calls.")
+    void createHasNoDuplicateIds() throws Exception {
+        List<Long> ids = runConcurrently(thread -> {
+            List<Long> created = new ArrayList<>();
+            for (int i = 0; i < FILMS_PER_THREAD; i++) {
+                created.add(repository.create(getTestFilm()).getId());
+            }
+            return created;
+        }).stream().flatMap(Collection::stream).toList();
+
+        assertThat(ids).hasSize(THREADS * FILMS_PER_THREAD).doesNotHaveDuplicates();
+        assertThat(repository.getAll()).hasSize(THREADS * FILMS_PER_THREAD);
+    }
+
+    @Test
+    @DisplayName("addLike() and removeLike() lose no likes under concurrent calls.")
+    void likesAreNotLost() throws Exception {
+        long filmId = repository.create(getTestFilm()).getId();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < LIKES_PER_THREAD; i++) {
+                long userId = (long) thread * LIKES_PER_THREAD + i;
+                repository.addLike(filmId, userId);
+                if (i % 2 == 1) {
+                    repository.removeLike(filmId, userId);
+                }
+            }
+            return List.of();
+        });
+
+        Set<Long> likes = repository.getLikes(filmId);
+        assertThat(likes).hasSize(THREADS * LIKES_PER_THREAD / 2);
+        assertThat(likes).allMatch(userId -> userId % 2 == 0);
+    }
+
+    @Test
+    @DisplayName("getAll() and getMostPopular() return snapshots while films are being written.")
+    void readsAreSnapshots() throws Exception {
+        for (long userId = 1; userId <= FILMS_PER_THREAD; userId++) {
+            repository.addLike(repository.create(getTestFilm()).getId(), userId);
+        }
+        Collection<Film> all = repository.getAll();
+        Collection<Film> popular = repository.getMostPopular(10);
+        List<Long> allIds = all.stream().map(Film::getId).toList();
+        List<Long> popularIds = popular.stream().map(Film::getId).toList();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < FILMS_PER_THREAD; i++) {
+                if (thread % 2 == 0) {
+                    Film film = repository.create(getTestFilm());
+                    repository.addLike(film.getId(), (long) thread);
+                    repository.addLike(film.getId(), (long) thread + 1);
+                    repository.delete((long) i + 1);
+                } else {
+                    assertThat(all).extracting(Film::getId).containsExactlyElementsOf(allIds);
+                    assertThat(popular).extracting(Film::getId).containsExactlyElementsOf(popularIds);
+                }
+            }
+            return List.of();
+        });
+
+        assertThat(all).extracting(Film::getId).containsExactlyElementsOf(allIds);
+        assertThat(popular).extracting(Film::getId).containsExactlyElementsOf(popularIds);
+        assertThat(repository.getAll()).hasSize(THREADS / 2 * FILMS_PER_THREAD)
+                .extracting(Film::getId)
+                .doesNotContainAnyElementsOf(allIds);
+        assertThat(repository.getMostPopular(10)).extracting(Film::getId)
+                .doesNotContainAnyElementsOf(popularIds);
+    }
+
+    @Test
+    @DisplayName("update() leaves the indexes describing the films that end up in the repository.")
+    void updatesKeepIndexesConsistent() throws Exception {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < FILMS_PER_THREAD; i++) {
+            films.add(repository.create(getTestFilm()));
+        }
+        runConcurrently(thread -> {
+            for (Film film : films) {
+                repository.update(film.toBuilder()
+                        .name("thread" + thread)
+                        .releaseDate(LocalDate.of(1900 + thread, 1, 1))
+                        .build());
+            }
+            return List.of();
+        });
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            int year = 1900 + thread;
+            FilmFilter filter = FilmFilter.builder().yearFrom(year).yearTo(year).build();
+            assertThat(repository.find(filter, 0, FILMS_PER_THREAD))
+                    .containsExactlyInAnyOrderElementsOf(repository.getAll().stream()
+                            .filter(film -> film.getReleaseDate().getYear() == year)
+                            .toList());
+        }
+    }
+
+    private <T> List<T> runConcurrently(ThreadTask<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.run(threadNumber);
+                }));
+            }
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(1, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask<T> {
+        T run(int thread) throws Exception;
+    }
+}
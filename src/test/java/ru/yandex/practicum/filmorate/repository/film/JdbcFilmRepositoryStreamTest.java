@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreRepository;
+import ru.yandex.practicum.filmorate.repository.genre.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.service.DataVersions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({JdbcFilmRepository.class, CachedMpaRepository.class, JdbcMpaRepository.class,
+        CachedGenreRepository.class, JdbcGenreRepository.class, LikeMatrixIndex.class, FilmSearchIndex.class,
+        FilmFilterIndex.class, DataVersions.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:file:./target/stream-test/${random.uuid}")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Tag("streaming")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("JdbcFilmRepository streaming tests")
+class JdbcFilmRepositoryStreamTest {
+    private static final long COUNT_OF_TEST_DATA_FILMS = 3L;
+    private static final long COUNT_OF_SYNTHETIC_FILMS = Long.getLong("filmorate.stream-test.films", 1_000_000L);
+    private static final long INSERT_CHUNK_SIZE = 50_000L;
+    private static final long SAMPLE_EVERY = COUNT_OF_SYNTHETIC_FILMS / 10;
+    private static final long MAX_RETAINED_HEAP = 32L * 1024 * 1024;
+
+    private final JdbcFilmRepository jdbcFilmRepository;
+    private final NamedParameterJdbcOperations jdbc;
+
+    @Test
+    @DisplayName("streamAll() passes every film to the consumer without retaining them on the heap.")
+    void streamAllKeepsHeapConstant() {
+        for (long from = 1; from <= COUNT_OF_SYNTHETIC_FILMS; from += INSERT_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            params.addValue("from", from);
+            params.addValue("to", Math.min(from + INSERT_CHUNK_SIZE - 1, COUNT_OF_SYNTHETIC_FILMS));
+
+            jdbc.update("INSERT INTO \"film\" (\"name\", \"description\", \"release_date\", \"duration\", " +
+                    "\"mpa_rating_id\") SELECT 'film ' || x, 'synthetic film number ' || x, " +
+                    "DATEADD(DAY, x % 30000, DATE '1900-01-01'), 60 + x % 120, 1 + x % 5 " +
+                    "FROM SYSTEM_RANGE(:from, :to);", params);
+            jdbc.update("INSERT INTO \"film_genre\" (\"film_id\", \"genre_id\") " +
+                    "SELECT x + :test_films, 1 + x % 6 FROM SYSTEM_RANGE(:from, :to) WHERE x % 2 = 0;",
+                    params.addValue("test_films", COUNT_OF_TEST_DATA_FILMS));
+        }
+
+        long baseline = getUsedHeapAfterGc();
+        AtomicLong streamed = new AtomicLong();
+        AtomicLong maxRetained = new AtomicLong();
+        AtomicLong lastFilmId = new AtomicLong();
+
+        jdbcFilmRepository.streamAll(film -> {
+            assertThat(film.getId()).isGreaterThan(lastFilmId.getAndSet(film.getId()));
+            if (streamed.incrementAndGet() % SAMPLE_EVERY == 0) {
+                maxRetained.accumulateAndGet(getUsedHeapAfterGc() - baseline, Math::max);
+            }
+        });
+
+        assertThat(streamed.get()).isEqualTo(COUNT_OF_SYNTHETIC_FILMS + COUNT_OF_TEST_DATA_FILMS);
+        assertThat(maxRetained.get()).isLessThan(MAX_RETAINED_HEAP);
+    }
+
+    private static long getUsedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
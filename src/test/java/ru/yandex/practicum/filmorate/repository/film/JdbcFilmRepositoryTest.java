@@ -6,16 +6,32 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.genre.CachedGenreRepository;
+import ru.yandex.practicum.filmorate.repository.genre.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.CachedMpaRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.service.DataVersions;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
-@Import(JdbcFilmRepository.class)
+@Import({JdbcFilmRepository.class, CachedMpaRepository.class, JdbcMpaRepository.class,
+        CachedGenreRepository.class, JdbcGenreRepository.class, LikeMatrixIndex.class, FilmSearchIndex.class,
+        FilmFilterIndex.class, DataVersions.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @DisplayName("JdbcFilmRepository integration tests")
 class JdbcFilmRepositoryTest {
@@ -24,6 +40,7 @@ class JdbcFilmRepositoryTest {
     private static final long TEST_USER_ID = 1L;
 
     private final JdbcFilmRepository jdbcFilmRepository;
+    private final NamedParameterJdbcOperations jdbc;
 
     static Film getTestFilm() {
         Film film = Film.builder()
@@ -66,7 +83,7 @@ class JdbcFilmRepositoryTest {
     @Test
     @DisplayName("get() returns correct film.")
     void get() {
-        Film film = jdbcFilmRepository.get(TEST_FILM_ID);
+        Film film = jdbcFilmRepository.get(TEST_FILM_ID).orElseThrow();
 
         assertThat(film)
                 .usingRecursiveComparison()
@@ -81,31 +98,79 @@ class JdbcFilmRepositoryTest {
                 .hasSize((int) COUNT_OF_ELEMENTS);
     }
 
+    @Test
+    @DisplayName("getPage() returns films after the cursor ordered by id.")
+    void getPage() {
+        assertThat(jdbcFilmRepository.getPage(0, 2))
+                .extracting(Film::getId)
+                .containsExactly(TEST_FILM_ID, TEST_FILM_ID + 1);
+        assertThat(jdbcFilmRepository.getPage(TEST_FILM_ID + 1, 2))
+                .singleElement()
+                .usingRecursiveComparison()
+                .isEqualTo(jdbcFilmRepository.get(COUNT_OF_ELEMENTS).orElseThrow());
+        assertThat(jdbcFilmRepository.getPage(0, 1))
+                .singleElement()
+                .usingRecursiveComparison()
+                .isEqualTo(getTestFilm());
+    }
+
+    @Test
+    @DisplayName("streamAll() passes every film with its genres in id order.")
+    void streamAll() {
+        List<Film> films = new ArrayList<>();
+        jdbcFilmRepository.streamAll(films::add);
+
+        assertThat(films)
+                .extracting(Film::getId)
+                .containsExactly(TEST_FILM_ID, TEST_FILM_ID + 1, COUNT_OF_ELEMENTS);
+        assertThat(films.get(0))
+                .usingRecursiveComparison()
+                .isEqualTo(getTestFilm());
+    }
+
     @Test
     @DisplayName("create() creates equivalent film on all fields except id.")
     void create() {
         Film createdFilm = jdbcFilmRepository.create(getTestNewFilm());
 
-        assertThat(jdbcFilmRepository.get(createdFilm.getId()))
+        assertThat(jdbcFilmRepository.get(createdFilm.getId()).orElseThrow())
                 .usingRecursiveComparison()
                 .ignoringFields("id")
                 .isEqualTo(getTestNewFilm());
     }
 
+    @Test
+    @DisplayName("createAll() creates all films with their genres in database.")
+    void createAll() {
+        Film newFilm = getTestNewFilm();
+        Film filmWithoutGenres = getTestNewFilm().toBuilder().name("testWithoutGenres").build();
+
+        jdbcFilmRepository.createAll(List.of(newFilm, filmWithoutGenres));
+
+        assertThat(newFilm.getId()).isNotNull();
+        assertThat(filmWithoutGenres.getId()).isEqualTo(newFilm.getId() + 1);
+        assertThat(jdbcFilmRepository.get(newFilm.getId()).orElseThrow())
+                .usingRecursiveComparison()
+                .isEqualTo(newFilm);
+        assertThat(jdbcFilmRepository.get(filmWithoutGenres.getId()).orElseThrow())
+                .usingRecursiveComparison()
+                .isEqualTo(filmWithoutGenres);
+    }
+
     @Test
     @DisplayName("update() updates film properly in database.")
     void update() {
         Film updateFilm = getTestNewFilm();
         updateFilm.setId(TEST_FILM_ID);
 
-        assertThat(jdbcFilmRepository.get(updateFilm.getId()))
+        assertThat(jdbcFilmRepository.get(updateFilm.getId()).orElseThrow())
                 .usingRecursiveComparison()
                 .ignoringExpectedNullFields()
                 .isNotEqualTo(updateFilm);
 
         jdbcFilmRepository.update(updateFilm);
 
-        assertThat(jdbcFilmRepository.get(updateFilm.getId()))
+        assertThat(jdbcFilmRepository.get(updateFilm.getId()).orElseThrow())
                 .usingRecursiveComparison()
                 .ignoringExpectedNullFields()
                 .isEqualTo(getTestNewFilm());
@@ -131,7 +196,88 @@ class JdbcFilmRepositoryTest {
         jdbcFilmRepository.addLike(TEST_FILM_ID, TEST_USER_ID);
 
         assertThat(jdbcFilmRepository.getMostPopular(2))
-                .containsExactly(jdbcFilmRepository.get(COUNT_OF_ELEMENTS), jdbcFilmRepository.get(TEST_FILM_ID));
+                .containsExactly(jdbcFilmRepository.get(COUNT_OF_ELEMENTS).orElseThrow(),
+                        jdbcFilmRepository.get(TEST_FILM_ID).orElseThrow());
+        assertThat(jdbcFilmRepository.findMostPopular(FilmFilter.builder().build(), 2))
+                .containsExactlyElementsOf(jdbcFilmRepository.getMostPopular(2));
+    }
+
+    @Test
+    @DisplayName("getRecommendations() returns films liked by users with overlapping likes.")
+    void getRecommendations() {
+        jdbcFilmRepository.addLike(TEST_FILM_ID, TEST_USER_ID);
+        jdbcFilmRepository.addLike(TEST_FILM_ID, TEST_USER_ID + 1);
+        jdbcFilmRepository.addLike(COUNT_OF_ELEMENTS, TEST_USER_ID + 1);
+
+        assertThat(jdbcFilmRepository.getRecommendations(TEST_USER_ID, 10))
+                .containsExactly(jdbcFilmRepository.get(COUNT_OF_ELEMENTS).orElseThrow());
+
+        jdbcFilmRepository.removeLike(TEST_FILM_ID, TEST_USER_ID + 1);
+
+        assertThat(jdbcFilmRepository.getRecommendations(TEST_USER_ID, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("search() finds films by name and description and follows create, update and delete.")
+    void search() {
+        assertThat(jdbcFilmRepository.search("film great", 10))
+                .containsExactly(jdbcFilmRepository.get(2L).orElseThrow());
+        assertThat(jdbcFilmRepository.search("fil", 10)).extracting(Film::getId).containsExactly(2L, 3L);
+
+        Film newFilm = jdbcFilmRepository.create(getTestNewFilm());
+        assertThat(jdbcFilmRepository.search("testnew", 10)).extracting(Film::getId).containsExactly(newFilm.getId());
+
+        newFilm.setName("Новый фильм");
+        jdbcFilmRepository.update(newFilm);
+        assertThat(jdbcFilmRepository.search("фил", 10)).extracting(Film::getId).containsExactly(newFilm.getId());
+        assertThat(jdbcFilmRepository.search("testnew", 10)).extracting(Film::getId).containsExactly(newFilm.getId());
+
+        jdbcFilmRepository.delete(newFilm.getId());
+        assertThat(jdbcFilmRepository.search("фил", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("find() and findMostPopular() filter films by genre, MPA rating and year and follow updates.")
+    void find() {
+        assertThat(jdbcFilmRepository.find(FilmFilter.builder().genreIds(Set.of(2, 6)).build(), 0, 10))
+                .extracting(Film::getId).containsExactly(TEST_FILM_ID, COUNT_OF_ELEMENTS);
+        assertThat(jdbcFilmRepository.find(FilmFilter.builder().mpaIds(Set.of(1, 5)).yearTo(2000).build(), 0, 10))
+                .extracting(Film::getId).containsExactly(TEST_FILM_ID);
+        assertThat(jdbcFilmRepository.find(FilmFilter.builder().yearFrom(1990).build(), 2, 10))
+                .extracting(Film::getId).containsExactly(COUNT_OF_ELEMENTS);
+
+        jdbcFilmRepository.addLike(COUNT_OF_ELEMENTS, TEST_USER_ID);
+        assertThat(jdbcFilmRepository.findMostPopular(FilmFilter.builder().yearFrom(1990).build(), 10))
+                .extracting(Film::getId).containsExactly(COUNT_OF_ELEMENTS, 2L);
+
+        Film newFilm = jdbcFilmRepository.create(getTestNewFilm());
+        assertThat(jdbcFilmRepository.find(FilmFilter.builder().genreIds(Set.of(3)).build(), 0, 10))
+                .extracting(Film::getId).containsExactly(newFilm.getId());
+
+        newFilm.getGenres().clear();
+        newFilm.getGenres().add(new Genre(6, "Боевик"));
+        jdbcFilmRepository.update(newFilm);
+        assertThat(jdbcFilmRepository.find(FilmFilter.builder().genreIds(Set.of(3)).build(), 0, 10)).isEmpty();
+        assertThat(jdbcFilmRepository.find(FilmFilter.builder().genreIds(Set.of(6)).build(), 0, 10))
+                .extracting(Film::getId).containsExactly(COUNT_OF_ELEMENTS, newFilm.getId());
+
+        jdbcFilmRepository.delete(newFilm.getId());
+        assertThat(jdbcFilmRepository.find(FilmFilter.builder().genreIds(Set.of(6)).build(), 0, 10))
+                .extracting(Film::getId).containsExactly(COUNT_OF_ELEMENTS);
+    }
+
+    @Test
+    @DisplayName("addLike() and removeLike() keep the film likes counter in sync.")
+    void likesCount() {
+        jdbcFilmRepository.addLike(TEST_FILM_ID, TEST_USER_ID);
+        jdbcFilmRepository.addLike(TEST_FILM_ID, TEST_USER_ID);
+        jdbcFilmRepository.addLike(TEST_FILM_ID, TEST_USER_ID + 1);
+        jdbcFilmRepository.removeLike(TEST_FILM_ID, TEST_USER_ID + 1);
+        jdbcFilmRepository.removeLike(TEST_FILM_ID, TEST_USER_ID + 1);
+
+        assertThat(jdbc.queryForObject("SELECT \"likes_count\" FROM \"film\" WHERE \"film_id\" = :film_id;",
+                new MapSqlParameterSource("film_id", TEST_FILM_ID), Integer.class))
+                .isEqualTo(1);
     }
 
     @Test
@@ -161,4 +307,58 @@ class JdbcFilmRepositoryTest {
         jdbcFilmRepository.delete(TEST_FILM_ID);
         assertThat(jdbcFilmRepository.checkFilmExists(TEST_FILM_ID)).isFalse();
     }
+
+    @Test
+    @DisplayName("Lookups and writes report missing films and affected rows.")
+    void reportsMissingFilmsAndAffectedRows() {
+        assertThat(jdbcFilmRepository.get(-1L)).isEmpty();
+        assertThat(jdbcFilmRepository.update(getTestNewFilm().toBuilder().id(-1L).build())).isEmpty();
+        assertThat(jdbcFilmRepository.delete(-1L)).isFalse();
+
+        assertThat(jdbcFilmRepository.addLike(TEST_FILM_ID, TEST_USER_ID)).isTrue();
+        assertThat(jdbcFilmRepository.addLike(TEST_FILM_ID, TEST_USER_ID)).isFalse();
+        assertThat(jdbcFilmRepository.removeLike(TEST_FILM_ID, TEST_USER_ID)).isTrue();
+        assertThat(jdbcFilmRepository.removeLike(TEST_FILM_ID, TEST_USER_ID)).isFalse();
+
+        assertThatThrownBy(() -> jdbcFilmRepository.addLike(TEST_FILM_ID, -1L))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> jdbcFilmRepository.addLike(-1L, TEST_USER_ID))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("getExistingIds() returns only ids of films in database.")
+    void getExistingIds() {
+        assertThat(jdbcFilmRepository.getExistingIds(List.of(TEST_FILM_ID, COUNT_OF_ELEMENTS, -1L)))
+                .containsExactlyInAnyOrder(TEST_FILM_ID, COUNT_OF_ELEMENTS);
+        assertThat(jdbcFilmRepository.getExistingIds(List.of())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("addLikes() and removeLikes() apply the batch and keep the film likes counters in sync.")
+    void addAndRemoveLikes() {
+        jdbcFilmRepository.addLike(TEST_FILM_ID, TEST_USER_ID);
+
+        assertThat(jdbcFilmRepository.addLikes(List.of(
+                new FilmLike(TEST_FILM_ID, TEST_USER_ID),
+                new FilmLike(TEST_FILM_ID, TEST_USER_ID + 1),
+                new FilmLike(COUNT_OF_ELEMENTS, TEST_USER_ID),
+                new FilmLike(COUNT_OF_ELEMENTS, TEST_USER_ID + 1)
+        ))).isEqualTo(3);
+
+        assertThat(jdbcFilmRepository.getMostPopular(2))
+                .extracting(Film::getId)
+                .containsExactly(TEST_FILM_ID, COUNT_OF_ELEMENTS);
+
+        assertThat(jdbcFilmRepository.removeLikes(List.of(
+                new FilmLike(TEST_FILM_ID, TEST_USER_ID),
+                new FilmLike(TEST_FILM_ID, TEST_USER_ID + 1),
+                new FilmLike(COUNT_OF_ELEMENTS, TEST_USER_ID + 2)
+        ))).isEqualTo(2);
+
+        assertThat(jdbc.queryForList("SELECT \"likes_count\" FROM \"film\" WHERE \"film_id\" IN (:film_ids) " +
+                        "ORDER BY \"film_id\";",
+                new MapSqlParameterSource("film_ids", List.of(TEST_FILM_ID, COUNT_OF_ELEMENTS)), Integer.class))
+                .containsExactly(0, 2);
+    }
 }
\ No newline at end of file
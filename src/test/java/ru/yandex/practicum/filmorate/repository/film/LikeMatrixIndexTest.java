@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LikeMatrixIndex tests")
+class LikeMatrixIndexTest {
+
+    @Test
+    @DisplayName("add() and remove() keep both directions of the like matrix in sync.")
+    void addAndRemove() {
+        LikeMatrixIndex index = new LikeMatrixIndex();
+
+        assertThat(index.add(1L, 20L)).isTrue();
+        assertThat(index.add(1L, 10L)).isTrue();
+        assertThat(index.add(1L, 10L)).isFalse();
+        assertThat(index.add(2L, 10L)).isTrue();
+
+        assertThat(index.getFilms(1L)).containsExactly(10L, 20L);
+        assertThat(index.getUsers(10L)).containsExactly(1L, 2L);
+        assertThat(index.getLikeCount(10L)).isEqualTo(2);
+        assertThat(index.getLikeCount(30L)).isZero();
+
+        assertThat(index.remove(1L, 10L)).isTrue();
+        assertThat(index.remove(1L, 10L)).isFalse();
+        assertThat(index.getFilms(1L)).containsExactly(20L);
+        assertThat(index.getUsers(10L)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("removeFilm() and removeUser() drop the row or column and return the removed ids.")
+    void removeFilmAndUser() {
+        LikeMatrixIndex index = new LikeMatrixIndex();
+        index.add(1L, 10L);
+        index.add(2L, 10L);
+        index.add(2L, 20L);
+
+        assertThat(index.removeFilm(10L)).containsExactly(1L, 2L);
+        assertThat(index.getFilms(1L)).isEmpty();
+        assertThat(index.getFilms(2L)).containsExactly(20L);
+
+        assertThat(index.removeUser(2L)).containsExactly(20L);
+        assertThat(index.getUsers(20L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("getRecommendations() ranks unseen films by the overlap of the users who liked them.")
+    void getRecommendations() {
+        LikeMatrixIndex index = new LikeMatrixIndex();
+        index.add(1L, 10L);
+        index.add(1L, 20L);
+        index.add(2L, 10L);
+        index.add(2L, 20L);
+        index.add(2L, 30L);
+        index.add(3L, 10L);
+        index.add(3L, 40L);
+        index.add(3L, 50L);
+        index.add(4L, 60L);
+
+        assertThat(index.getRecommendations(1L, 10)).containsExactly(30L, 40L, 50L);
+        assertThat(index.getRecommendations(1L, 2)).containsExactly(30L, 40L);
+        assertThat(index.getRecommendations(4L, 10)).isEmpty();
+        assertThat(index.getRecommendations(5L, 10)).isEmpty();
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.config.ShardingProperties;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.UserShards;
+import ru.yandex.practicum.filmorate.repository.genre.JdbcGenreRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.JdbcMpaRepository;
+import ru.yandex.practicum.filmorate.repository.user.ShardedUserRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ShardedFilmRepository tests")
+class ShardedFilmRepositoryTest {
+    private static final int SHARD_COUNT = 3;
+    private static final AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    private EmbeddedDatabase database;
+    private UserShards shards;
+    private LikeMatrixIndex likeMatrix;
+    private ShardedUserRepository userRepository;
+    private ShardedFilmRepository filmRepository;
+
+    private ShardedFilmRepository createFilmRepository(LikeMatrixIndex likeMatrix) {
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(database);
+        ShardedFilmRepository repository = new ShardedFilmRepository(jdbc, new JdbcMpaRepository(jdbc),
+                new JdbcGenreRepository(jdbc), likeMatrix, new FilmSearchIndex(), new FilmFilterIndex(), shards);
+        repository.loadFilterIndex();
+        repository.loadLikeMatrix();
+        return repository;
+    }
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("schema.sql", "test-data.sql")
+                .build();
+
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        properties.setCount(SHARD_COUNT);
+        properties.setUrlTemplate("jdbc:h2:mem:like-shard-" + DATABASE_NUMBER.incrementAndGet() + "-%d");
+        shards = new UserShards(properties);
+
+        likeMatrix = new LikeMatrixIndex();
+        userRepository = new ShardedUserRepository(shards, likeMatrix);
+        userRepository.createAll(IntStream.rangeClosed(1, 3)
+                .mapToObj(i -> User.builder()
+                        .email("user" + i + "@email.com")
+                        .login("user" + i)
+                        .name("test" + i)
+                        .birthday(LocalDate.parse("2000-03-22"))
+                        .build())
+                .toList());
+        filmRepository = createFilmRepository(likeMatrix);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shards.close();
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Likes are stored on the shard of their user and ranked by the like counts of all shards in getMostPopular().")
+    void likesAndGetMostPopular() {
+        assertThat(filmRepository.addLike(2L, 1L)).isTrue();
+        assertThat(filmRepository.addLike(2L, 1L)).isFalse();
+        assertThat(filmRepository.addLikes(List.of(new FilmLike(2L, 2L), new FilmLike(2L, 3L),
+                new FilmLike(1L, 2L), new FilmLike(3L, 1L), new FilmLike(3L, 3L), new FilmLike(2L, 1L))))
+                .isEqualTo(5);
+        assertThatThrownBy(() -> filmRepository.addLike(99L, 1L)).isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> filmRepository.addLike(1L, 99L)).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(shards.forUser(3L).queryForObject("SELECT COUNT(*) FROM \"user_film_like\" " +
+                "WHERE \"user_id\" = :user_id;", new MapSqlParameterSource("user_id", 3L), Integer.class))
+                .isEqualTo(2);
+        assertThat(filmRepository.getMostPopular(2)).extracting(Film::getId).containsExactly(2L, 3L);
+        assertThat(filmRepository.getMostPopular(10)).extracting(Film::getId).containsExactly(2L, 3L, 1L);
+
+        assertThat(filmRepository.removeLike(2L, 1L)).isTrue();
+        assertThat(filmRepository.removeLike(2L, 1L)).isFalse();
+        assertThat(filmRepository.removeLikes(List.of(new FilmLike(2L, 2L), new FilmLike(1L, 1L)))).isEqualTo(1);
+        assertThat(filmRepository.getMostPopular(10)).extracting(Film::getId).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    @DisplayName("loadLikeMatrix() merges likes of all shards and delete() removes them everywhere.")
+    void loadLikeMatrixAndDelete() {
+        filmRepository.addLikes(List.of(new FilmLike(2L, 1L), new FilmLike(2L, 2L), new FilmLike(2L, 3L),
+                new FilmLike(1L, 2L)));
+
+        LikeMatrixIndex reloadedMatrix = new LikeMatrixIndex();
+        createFilmRepository(reloadedMatrix);
+        assertThat(reloadedMatrix.getUsers(2L)).containsExactly(1L, 2L, 3L);
+        assertThat(reloadedMatrix.getFilms(2L)).containsExactly(1L, 2L);
+
+        assertThat(filmRepository.delete(2L)).isTrue();
+        assertThat(shards.scatter((shard, jdbc) -> jdbc.queryForObject("SELECT COUNT(*) FROM \"user_film_like\" " +
+                "WHERE \"film_id\" = :film_id;", new MapSqlParameterSource("film_id", 2L), Integer.class)))
+                .containsOnly(0);
+        assertThat(filmRepository.getMostPopular(10)).extracting(Film::getId).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Deleting a user decreases the like counts of the films the user liked.")
+    void deleteUserDecreasesLikeCounts() {
+        filmRepository.addLikes(List.of(new FilmLike(2L, 1L), new FilmLike(1L, 2L), new FilmLike(1L, 3L)));
+
+        assertThat(userRepository.delete(2L)).isTrue();
+        assertThat(shards.scatter((shard, jdbc) -> jdbc.queryForObject("SELECT COALESCE(SUM(\"likes\"), 0) " +
+                "FROM \"film_like_count\";", new MapSqlParameterSource(), Integer.class)))
+                .containsExactly(1, 0, 1);
+        assertThat(filmRepository.getMostPopular(10)).extracting(Film::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("addLike() removes a like whose film was deleted after the existence check.")
+    void addLikeRemovesLikeOfDeletedFilm() {
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(database);
+        // the film check passes, as if the film was deleted right after it
+        ShardedFilmRepository racingRepository = new ShardedFilmRepository(jdbc, new JdbcMpaRepository(jdbc),
+                new JdbcGenreRepository(jdbc), likeMatrix, new FilmSearchIndex(), new FilmFilterIndex(), shards) {
+            @Override
+            public boolean checkFilmExists(Long filmId) {
+                return true;
+            }
+        };
+
+        assertThatThrownBy(() -> racingRepository.addLike(99L, 1L))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(shards.forUser(1L).queryForObject("SELECT COUNT(*) FROM \"user_film_like\";",
+                new MapSqlParameterSource(), Integer.class)).isZero();
+        assertThat(likeMatrix.getUsers(99L)).isEmpty();
+        assertThat(racingRepository.getMostPopular(10)).isEmpty();
+    }
+}
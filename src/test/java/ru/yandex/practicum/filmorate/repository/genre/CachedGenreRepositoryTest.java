@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.repository.genre;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import ru.yandex.practicum.filmorate.service.DataVersions;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({CachedGenreRepository.class, JdbcGenreRepository.class, DataVersions.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("CachedGenreRepository integration tests")
+class CachedGenreRepositoryTest {
+    private static final int TEST_GENRE_ID = 1;
+    private static final int COUNT_OF_ELEMENTS = 6;
+
+    private final CachedGenreRepository cachedGenreRepository;
+    private final NamedParameterJdbcOperations jdbc;
+    private final DataVersions dataVersions;
+
+    @Test
+    @DisplayName("Cache answers existence checks and lookups like the database does.")
+    void answersLikeDatabase() {
+        assertThat(cachedGenreRepository.checkGenreExists(TEST_GENRE_ID)).isTrue();
+        assertThat(cachedGenreRepository.checkGenreExists(COUNT_OF_ELEMENTS + 1)).isFalse();
+        assertThat(cachedGenreRepository.checkGenresExist(List.of())).isTrue();
+        assertThat(cachedGenreRepository.checkGenresExist(List.of(TEST_GENRE_ID, COUNT_OF_ELEMENTS))).isTrue();
+        assertThat(cachedGenreRepository.checkGenresExist(List.of(TEST_GENRE_ID, COUNT_OF_ELEMENTS + 1))).isFalse();
+        assertThat(cachedGenreRepository.get(TEST_GENRE_ID))
+                .usingRecursiveComparison()
+                .isEqualTo(JdbcGenreRepositoryTest.getTestGenre());
+        assertThat(cachedGenreRepository.getAll()).hasSize(COUNT_OF_ELEMENTS);
+    }
+
+    @Test
+    @DisplayName("get() hands out shared instances.")
+    void sharesInstances() {
+        assertThat(cachedGenreRepository.get(TEST_GENRE_ID)).isSameAs(cachedGenreRepository.get(TEST_GENRE_ID));
+    }
+
+    @Test
+    @DisplayName("refresh() picks up genres added to the database and changes the reference data version.")
+    void refresh() {
+        String referenceDataTag = dataVersions.getReferenceDataTag();
+        jdbc.update("INSERT INTO \"genre\" (\"genre_id\", \"name\") VALUES (:genre_id, 'Вестерн');",
+                new MapSqlParameterSource("genre_id", COUNT_OF_ELEMENTS + 1));
+        assertThat(cachedGenreRepository.checkGenreExists(COUNT_OF_ELEMENTS + 1)).isFalse();
+
+        cachedGenreRepository.refresh();
+
+        assertThat(cachedGenreRepository.checkGenreExists(COUNT_OF_ELEMENTS + 1)).isTrue();
+        assertThat(dataVersions.getReferenceDataTag()).isNotEqualTo(referenceDataTag);
+
+        jdbc.update("DELETE FROM \"genre\" WHERE \"genre_id\" = :genre_id;",
+                new MapSqlParameterSource("genre_id", COUNT_OF_ELEMENTS + 1));
+        cachedGenreRepository.refresh();
+    }
+}
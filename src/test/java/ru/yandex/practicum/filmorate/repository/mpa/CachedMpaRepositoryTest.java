@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.repository.mpa;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.service.DataVersions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import({CachedMpaRepository.class, JdbcMpaRepository.class, DataVersions.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DisplayName("CachedMpaRepository integration tests")
+class CachedMpaRepositoryTest {
+    private static final int TEST_MPA_ID = 1;
+    private static final int COUNT_OF_ELEMENTS = 5;
+
+    private final CachedMpaRepository cachedMpaRepository;
+
+    @Test
+    @DisplayName("Cache answers existence checks and lookups like the database does.")
+    void answersLikeDatabase() {
+        assertThat(cachedMpaRepository.checkMpaExists(TEST_MPA_ID)).isTrue();
+        assertThat(cachedMpaRepository.checkMpaExists(COUNT_OF_ELEMENTS + 1)).isFalse();
+        assertThat(cachedMpaRepository.get(TEST_MPA_ID))
+                .usingRecursiveComparison()
+                .isEqualTo(JdbcMpaRepositoryTest.getTestMpa());
+        assertThat(cachedMpaRepository.getAll()).hasSize(COUNT_OF_ELEMENTS);
+    }
+
+    @Test
+    @DisplayName("get() hands out shared instances.")
+    void sharesInstances() {
+        assertThat(cachedMpaRepository.get(TEST_MPA_ID)).isSameAs(cachedMpaRepository.get(TEST_MPA_ID));
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FriendGraphIndex tests")
+class FriendGraphIndexTest {
+
+    @Test
+    @DisplayName("add() and remove() keep friends and followers sorted and report changes.")
+    void addAndRemove() {
+        FriendGraphIndex index = new FriendGraphIndex();
+
+        assertThat(index.add(1L, 3L)).isTrue();
+        assertThat(index.add(1L, 2L)).isTrue();
+        assertThat(index.add(1L, 2L)).isFalse();
+        assertThat(index.add(4L, 2L)).isTrue();
+
+        assertThat(index.getFriends(1L)).containsExactly(2L, 3L);
+        assertThat(index.getFollowers(2L)).containsExactly(1L, 4L);
+
+        assertThat(index.remove(1L, 2L)).isTrue();
+        assertThat(index.remove(1L, 2L)).isFalse();
+        assertThat(index.getFriends(1L)).containsExactly(3L);
+        assertThat(index.getFollowers(2L)).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("removeUser() drops the user from friends and followers of other users.")
+    void removeUser() {
+        FriendGraphIndex index = new FriendGraphIndex();
+        index.add(1L, 2L);
+        index.add(2L, 3L);
+        index.add(3L, 2L);
+
+        index.removeUser(2L);
+
+        assertThat(index.getFriends(1L)).isEmpty();
+        assertThat(index.getFriends(2L)).isEmpty();
+        assertThat(index.getFollowers(3L)).isEmpty();
+        assertThat(index.getFriendCount(3L)).isZero();
+    }
+
+    @Test
+    @DisplayName("getMutualFriends() matches a naive intersection for similar and skewed degrees.")
+    void getMutualFriends() {
+        Random random = new Random(42);
+        FriendGraphIndex index = new FriendGraphIndex();
+        long[] largeFriendIds = LongStream.generate(() -> random.nextInt(100_000)).limit(20_000).sorted().distinct()
+                .toArray();
+        long[] mediumFriendIds = LongStream.generate(() -> random.nextInt(100_000)).limit(10_000).sorted().distinct()
+                .toArray();
+        long[] smallFriendIds = LongStream.generate(() -> random.nextInt(100_000)).limit(50).sorted().distinct()
+                .toArray();
+        index.putFriends(1L, largeFriendIds);
+        index.putFriends(2L, mediumFriendIds);
+        index.putFriends(3L, smallFriendIds);
+
+        assertThat(index.getMutualFriends(1L, 2L)).containsExactly(naiveIntersect(largeFriendIds, mediumFriendIds));
+        assertThat(index.getMutualFriends(1L, 3L)).containsExactly(naiveIntersect(largeFriendIds, smallFriendIds));
+        assertThat(index.getMutualFriends(3L, 1L)).containsExactly(naiveIntersect(largeFriendIds, smallFriendIds));
+        assertThat(index.getMutualFriends(1L, 4L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("getFriendSuggestions() ranks non-friends by mutual friends and then by id.")
+    void getFriendSuggestions() {
+        FriendGraphIndex index = new FriendGraphIndex();
+        index.add(1L, 2L);
+        index.add(1L, 3L);
+        index.add(1L, 4L);
+        index.add(2L, 1L);
+        index.add(2L, 3L);
+        index.add(2L, 5L);
+        index.add(2L, 6L);
+        index.add(3L, 6L);
+        index.add(3L, 7L);
+        index.add(4L, 7L);
+        index.add(4L, 8L);
+
+        assertThat(index.getFriendSuggestions(1L, 10)).containsExactly(6L, 7L, 5L, 8L);
+        assertThat(index.getFriendSuggestions(1L, 3)).containsExactly(6L, 7L, 5L);
+        assertThat(index.getFriendSuggestions(8L, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("getFriendSuggestions() reflects friendship changes of the user and of the user's friends.")
+    void getFriendSuggestionsAfterChanges() {
+        FriendGraphIndex index = new FriendGraphIndex();
+        index.add(1L, 2L);
+        index.add(2L, 3L);
+
+        assertThat(index.getFriendSuggestions(1L, 10)).containsExactly(3L);
+
+        index.add(2L, 4L);
+        assertThat(index.getFriendSuggestions(1L, 10)).containsExactly(3L, 4L);
+
+        index.add(1L, 3L);
+        assertThat(index.getFriendSuggestions(1L, 10)).containsExactly(4L);
+
+        index.removeUser(2L);
+        assertThat(index.getFriendSuggestions(1L, 10)).isEmpty();
+    }
+
+    private static long[] naiveIntersect(long[] first, long[] second) {
+        return LongStream.of(first)
+                .filter(id -> Arrays.binarySearch(second, id) >= 0)
+                .toArray();
+    }
+}
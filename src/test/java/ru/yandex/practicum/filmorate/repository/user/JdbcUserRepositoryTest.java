@@ -6,14 +6,25 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.LikeMatrixIndex;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
-@Import({JdbcUserRepository.class})
+@Import({JdbcUserRepository.class, LikeMatrixIndex.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @DisplayName("JdbcUserRepository integration tests")
 class JdbcUserRepositoryTest {
@@ -21,6 +32,8 @@ class JdbcUserRepositoryTest {
     private static final long COUNT_OF_ELEMENTS = 2L;
 
     private final JdbcUserRepository jdbcUserRepository;
+    private final NamedParameterJdbcOperations jdbc;
+    private final PlatformTransactionManager transactionManager;
 
     static User getTestUser() {
         return User.builder()
@@ -62,7 +75,7 @@ class JdbcUserRepositoryTest {
     @Test
     @DisplayName("get() returns correct user.")
     void get() {
-        User user = jdbcUserRepository.get(TEST_USER_ID);
+        User user = jdbcUserRepository.get(TEST_USER_ID).orElseThrow();
 
         assertThat(user)
                 .usingRecursiveComparison()
@@ -77,17 +90,54 @@ class JdbcUserRepositoryTest {
                 .hasSize((int) COUNT_OF_ELEMENTS);
     }
 
+    @Test
+    @DisplayName("getPage() returns users after the cursor ordered by id.")
+    void getPage() {
+        assertThat(jdbcUserRepository.getPage(0, 1))
+                .singleElement()
+                .usingRecursiveComparison()
+                .isEqualTo(getTestUser());
+        assertThat(jdbcUserRepository.getPage(TEST_USER_ID, 10))
+                .extracting(User::getId)
+                .containsExactly(COUNT_OF_ELEMENTS);
+    }
+
+    @Test
+    @DisplayName("streamAll() passes every user in id order.")
+    void streamAll() {
+        List<User> users = new ArrayList<>();
+        jdbcUserRepository.streamAll(users::add);
+
+        assertThat(users)
+                .extracting(User::getId)
+                .containsExactly(TEST_USER_ID, COUNT_OF_ELEMENTS);
+    }
+
     @Test
     @DisplayName("create() creates equivalent user on all fields except id.")
     void create() {
         User createdUser = jdbcUserRepository.create(getTestNewUser());
 
-        assertThat(jdbcUserRepository.get(createdUser.getId()))
+        assertThat(jdbcUserRepository.get(createdUser.getId()).orElseThrow())
                 .usingRecursiveComparison()
                 .ignoringFields("id")
                 .isEqualTo(getTestNewUser());
     }
 
+    @Test
+    @DisplayName("createAll() creates all users in database.")
+    void createAll() {
+        User firstUser = getTestNewUser();
+        User secondUser = getTestNewUser().toBuilder().email("emailSecond@email.com").build();
+
+        jdbcUserRepository.createAll(List.of(firstUser, secondUser));
+
+        assertThat(jdbcUserRepository.get(firstUser.getId()).orElseThrow()).isEqualTo(firstUser);
+        assertThat(jdbcUserRepository.get(secondUser.getId()).orElseThrow()).isEqualTo(secondUser);
+        assertThat(jdbcUserRepository.getExistingEmails(List.of(firstUser.getEmail(), "missing@email.com")))
+                .containsExactly(firstUser.getEmail());
+    }
+
     @Test
     @DisplayName("update() updates user properly in database.")
     void update() {
@@ -95,14 +145,14 @@ class JdbcUserRepositoryTest {
                 .id(TEST_USER_ID)
                 .build();
 
-        assertThat(jdbcUserRepository.get(updateUser.getId()))
+        assertThat(jdbcUserRepository.get(updateUser.getId()).orElseThrow())
                 .usingRecursiveComparison()
                 .ignoringExpectedNullFields()
                 .isNotEqualTo(updateUser);
 
         jdbcUserRepository.update(updateUser);
 
-        assertThat(jdbcUserRepository.get(updateUser.getId()))
+        assertThat(jdbcUserRepository.get(updateUser.getId()).orElseThrow())
                 .usingRecursiveComparison()
                 .ignoringExpectedNullFields()
                 .isEqualTo(getTestNewUser());
@@ -113,11 +163,11 @@ class JdbcUserRepositoryTest {
     void addFriend() {
         jdbcUserRepository.addFriend(TEST_USER_ID, COUNT_OF_ELEMENTS);
 
-        assertThat(jdbcUserRepository.getFriends(TEST_USER_ID))
+        assertThat(jdbcUserRepository.getFriends(TEST_USER_ID).orElseThrow())
                 .singleElement()
                 .isEqualToComparingOnlyGivenFields(User.builder().id(COUNT_OF_ELEMENTS), "id");
 
-        assertThat(jdbcUserRepository.getFriends(COUNT_OF_ELEMENTS)).hasSize(0);
+        assertThat(jdbcUserRepository.getFriends(COUNT_OF_ELEMENTS).orElseThrow()).hasSize(0);
     }
 
     @Test
@@ -125,7 +175,7 @@ class JdbcUserRepositoryTest {
     void getFriends() {
         jdbcUserRepository.addFriend(TEST_USER_ID, COUNT_OF_ELEMENTS);
 
-        assertThat(jdbcUserRepository.getFriends(TEST_USER_ID))
+        assertThat(jdbcUserRepository.getFriends(TEST_USER_ID).orElseThrow())
                 .singleElement()
                 .isEqualToComparingOnlyGivenFields(User.builder().id(COUNT_OF_ELEMENTS), "id");
     }
@@ -143,13 +193,27 @@ class JdbcUserRepositoryTest {
                 .isEqualTo(friend);
     }
 
+    @Test
+    @DisplayName("getFriendSuggestions() returns friends of friends who are not friends yet.")
+    void getFriendSuggestions() {
+        User friend = jdbcUserRepository.create(getTestNewUser());
+
+        jdbcUserRepository.addFriend(TEST_USER_ID, friend.getId());
+        jdbcUserRepository.addFriend(friend.getId(), COUNT_OF_ELEMENTS);
+
+        assertThat(jdbcUserRepository.getFriendSuggestions(TEST_USER_ID, 10).orElseThrow())
+                .singleElement()
+                .isEqualTo(jdbcUserRepository.get(COUNT_OF_ELEMENTS).orElseThrow());
+        assertThat(jdbcUserRepository.getFriendSuggestions(-1L, 10)).isEmpty();
+    }
+
     @Test
     @DisplayName("removeFriend() actually removes the friend in database.")
     void removeFriend() {
         jdbcUserRepository.addFriend(TEST_USER_ID, COUNT_OF_ELEMENTS);
-        assertThat(jdbcUserRepository.getFriends(TEST_USER_ID)).hasSize(1);
+        assertThat(jdbcUserRepository.getFriends(TEST_USER_ID).orElseThrow()).hasSize(1);
         jdbcUserRepository.removeFriend(TEST_USER_ID, COUNT_OF_ELEMENTS);
-        assertThat(jdbcUserRepository.getFriends(TEST_USER_ID)).hasSize(0);
+        assertThat(jdbcUserRepository.getFriends(TEST_USER_ID).orElseThrow()).hasSize(0);
     }
 
     @Test
@@ -159,4 +223,74 @@ class JdbcUserRepositoryTest {
         jdbcUserRepository.delete(TEST_USER_ID);
         assertThat(jdbcUserRepository.checkUserExists(TEST_USER_ID)).isFalse();
     }
+
+    @Test
+    @DisplayName("Lookups and writes report missing users and affected rows.")
+    void reportsMissingUsersAndAffectedRows() {
+        assertThat(jdbcUserRepository.get(-1L)).isEmpty();
+        assertThat(jdbcUserRepository.getFriends(-1L)).isEmpty();
+        assertThat(jdbcUserRepository.update(getTestNewUser().toBuilder().id(-1L).build())).isEmpty();
+        assertThat(jdbcUserRepository.delete(-1L)).isFalse();
+
+        assertThat(jdbcUserRepository.addFriend(TEST_USER_ID, COUNT_OF_ELEMENTS)).isTrue();
+        assertThat(jdbcUserRepository.addFriend(TEST_USER_ID, COUNT_OF_ELEMENTS)).isFalse();
+        assertThat(jdbcUserRepository.removeFriend(TEST_USER_ID, COUNT_OF_ELEMENTS)).isTrue();
+        assertThat(jdbcUserRepository.removeFriend(TEST_USER_ID, COUNT_OF_ELEMENTS)).isFalse();
+
+        assertThatThrownBy(() -> jdbcUserRepository.addFriend(TEST_USER_ID, -1L))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("getExistingIds() returns only ids of users in database.")
+    void getExistingIds() {
+        assertThat(jdbcUserRepository.getExistingIds(List.of(TEST_USER_ID, COUNT_OF_ELEMENTS, -1L)))
+                .containsExactlyInAnyOrder(TEST_USER_ID, COUNT_OF_ELEMENTS);
+        assertThat(jdbcUserRepository.getExistingIds(List.of())).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Friend graph index drops friendships of rolled back transactions.")
+    void friendGraphIsCompensatedOnRollback() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User friend = jdbcUserRepository.create(getTestNewUser());
+            jdbcUserRepository.addFriend(TEST_USER_ID, friend.getId());
+            jdbcUserRepository.addFriend(COUNT_OF_ELEMENTS, friend.getId());
+            jdbcUserRepository.removeFriend(COUNT_OF_ELEMENTS, friend.getId());
+            jdbcUserRepository.addFriend(COUNT_OF_ELEMENTS, friend.getId());
+
+            assertThat(jdbcUserRepository.getMutualFriends(TEST_USER_ID, COUNT_OF_ELEMENTS))
+                    .singleElement()
+                    .isEqualTo(friend);
+            status.setRollbackOnly();
+        });
+
+        assertThat(jdbcUserRepository.getMutualFriends(TEST_USER_ID, COUNT_OF_ELEMENTS)).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("loadFriendGraph() rebuilds the friend graph index from database.")
+    void loadFriendGraph() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User friend = jdbcUserRepository.create(getTestNewUser());
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            params.addValue("first_user_id", TEST_USER_ID);
+            params.addValue("second_user_id", COUNT_OF_ELEMENTS);
+            params.addValue("friend_id", friend.getId());
+            jdbc.update("INSERT INTO \"user_user_friend\" (\"user_id\", \"friend_id\") " +
+                    "VALUES (:first_user_id, :friend_id), (:second_user_id, :friend_id);", params);
+
+            jdbcUserRepository.loadFriendGraph();
+
+            assertThat(jdbcUserRepository.getMutualFriends(TEST_USER_ID, COUNT_OF_ELEMENTS))
+                    .singleElement()
+                    .isEqualTo(friend);
+            status.setRollbackOnly();
+        });
+
+        jdbcUserRepository.loadFriendGraph();
+        assertThat(jdbcUserRepository.getMutualFriends(TEST_USER_ID, COUNT_OF_ELEMENTS)).isEmpty();
+    }
 }
\ No newline at end of file
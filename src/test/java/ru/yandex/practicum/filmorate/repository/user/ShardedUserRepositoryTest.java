@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import ru.yandex.practicum.filmorate.config.ShardingProperties;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.UserShards;
+import ru.yandex.practicum.filmorate.repository.film.LikeMatrixIndex;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ShardedUserRepository tests")
+class ShardedUserRepositoryTest {
+    private static final int SHARD_COUNT = 3;
+    private static final AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    private ShardingProperties properties;
+    private UserShards shards;
+    private ShardedUserRepository userRepository;
+
+    // every test gets its own in-memory databases, they are dropped when the shards are closed
+    static ShardingProperties getShardingProperties(int count) {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        properties.setCount(count);
+        properties.setUrlTemplate("jdbc:h2:mem:user-shard-" + DATABASE_NUMBER.incrementAndGet() + "-%d");
+        return properties;
+    }
+
+    static User getTestUser(int number) {
+        return User.builder()
+                .email("user" + number + "@email.com")
+                .login("user" + number)
+                .name("test" + number)
+                .birthday(LocalDate.parse("2000-03-22").plusDays(number))
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        properties = getShardingProperties(SHARD_COUNT);
+        shards = new UserShards(properties);
+        userRepository = new ShardedUserRepository(shards, new LikeMatrixIndex());
+        userRepository.loadFriendGraph();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shards.close();
+    }
+
+    private int countRows(long userId, String sqlQuery) {
+        return shards.forUser(userId)
+                .queryForObject(sqlQuery, new MapSqlParameterSource("user_id", userId), Integer.class);
+    }
+
+    @Test
+    @DisplayName("create() and createAll() spread users over shards and reads are routed by id.")
+    void createAndGet() {
+        List<User> users = IntStream.rangeClosed(1, 6)
+                .mapToObj(i -> userRepository.create(getTestUser(i)))
+                .toList();
+        userRepository.createAll(List.of(getTestUser(7), getTestUser(8), getTestUser(9)));
+
+        assertThat(users).extracting(User::getId).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        for (long userId = 1; userId <= 9; userId++) {
+            assertThat(shards.shardOf(userId)).isEqualTo((userId - 1) % SHARD_COUNT);
+            assertThat(countRows(userId, "SELECT COUNT(*) FROM \"user\" WHERE \"user_id\" = :user_id;"))
+                    .isEqualTo(1);
+        }
+        assertThat(userRepository.get(5L).orElseThrow())
+                .usingRecursiveComparison()
+                .ignoringFields("id")
+                .isEqualTo(getTestUser(5));
+        assertThat(userRepository.get(10L)).isEmpty();
+        assertThat(userRepository.getExistingIds(List.of(2L, 6L, 9L, 10L))).containsExactlyInAnyOrder(2L, 6L, 9L);
+    }
+
+    @Test
+    @DisplayName("getAll(), getPage() and streamAll() merge users of all shards by id.")
+    void getAllGetPageAndStreamAll() {
+        userRepository.createAll(IntStream.rangeClosed(1, 10).mapToObj(ShardedUserRepositoryTest::getTestUser)
+                .toList());
+        List<Long> streamedIds = new ArrayList<>();
+        userRepository.streamAll(user -> streamedIds.add(user.getId()));
+
+        assertThat(userRepository.getAll()).extracting(User::getId)
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(userRepository.getPage(2, 4)).extracting(User::getId).containsExactly(3L, 4L, 5L, 6L);
+        assertThat(userRepository.getPage(8, 4)).extracting(User::getId).containsExactly(9L, 10L);
+        assertThat(streamedIds).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    }
+
+    @Test
+    @DisplayName("checkUserExistsByEmail() and getExistingEmails() look through all shards.")
+    void emails() {
+        userRepository.createAll(List.of(getTestUser(1), getTestUser(2), getTestUser(3)));
+
+        assertThat(userRepository.checkUserExistsByEmail(getTestUser(3))).isTrue();
+        assertThat(userRepository.checkUserExistsByEmail(getTestUser(3).toBuilder().id(3L).build())).isFalse();
+        assertThat(userRepository.checkUserExistsByEmail(getTestUser(4))).isFalse();
+        assertThat(userRepository.getExistingEmails(Set.of("user1@email.com", "user2@email.com", "user4@email.com")))
+                .containsExactlyInAnyOrder("user1@email.com", "user2@email.com");
+    }
+
+    @Test
+    @DisplayName("Friends on different shards are added, found, reloaded and removed with their users.")
+    void friends() {
+        userRepository.createAll(IntStream.rangeClosed(1, 4).mapToObj(ShardedUserRepositoryTest::getTestUser)
+                .toList());
+
+        assertThat(userRepository.addFriend(1L, 2L)).isTrue();
+        assertThat(userRepository.addFriend(1L, 3L)).isTrue();
+        assertThat(userRepository.addFriend(4L, 2L)).isTrue();
+        assertThat(userRepository.addFriend(4L, 3L)).isTrue();
+        assertThat(userRepository.addFriend(1L, 2L)).isFalse();
+        assertThatThrownBy(() -> userRepository.addFriend(1L, 99L)).isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> userRepository.addFriend(99L, 1L)).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(userRepository.getFriends(1L).orElseThrow()).extracting(User::getId).containsExactly(2L, 3L);
+        assertThat(userRepository.getFriends(99L)).isEmpty();
+        assertThat(userRepository.getMutualFriends(1L, 4L)).extracting(User::getId).containsExactly(2L, 3L);
+
+        ShardedUserRepository reloadedRepository = new ShardedUserRepository(shards, new LikeMatrixIndex());
+        reloadedRepository.loadFriendGraph();
+        assertThat(reloadedRepository.getMutualFriends(1L, 4L)).extracting(User::getId).containsExactly(2L, 3L);
+        assertThat(reloadedRepository.getFriendSuggestions(2L, 10).orElseThrow()).isEmpty();
+
+        assertThat(userRepository.delete(2L)).isTrue();
+        assertThat(userRepository.delete(2L)).isFalse();
+        assertThat(userRepository.getMutualFriends(1L, 4L)).extracting(User::getId).containsExactly(3L);
+        assertThat(countRows(1L, "SELECT COUNT(*) FROM \"user_user_friend\" WHERE \"user_id\" = :user_id;"))
+                .isEqualTo(1);
+
+        assertThat(userRepository.removeFriend(1L, 3L)).isTrue();
+        assertThat(userRepository.removeFriend(1L, 3L)).isFalse();
+        assertThat(userRepository.getFriends(1L).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Shards created for another shard count are rejected.")
+    void shardCountMismatch() {
+        ShardingProperties otherCount = getShardingProperties(SHARD_COUNT + 1);
+        otherCount.setUrlTemplate(properties.getUrlTemplate());
+
+        assertThatThrownBy(() -> new UserShards(otherCount)).isInstanceOf(IllegalStateException.class);
+    }
+}
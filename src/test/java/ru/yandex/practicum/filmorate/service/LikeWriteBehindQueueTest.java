@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.config.LikeWriteBehindProperties;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.film.InMemoryFilmRepository;
+import ru.yandex.practicum.filmorate.repository.user.InMemoryUserRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LikeWriteBehindQueue tests")
+class LikeWriteBehindQueueTest {
+    private static final int CAPACITY = 4;
+
+    private InMemoryFilmRepository filmRepository;
+    private InMemoryUserRepository userRepository;
+    private DataVersions dataVersions;
+    private LikeWriteBehindQueue queue;
+    private long filmId;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        filmRepository = new InMemoryFilmRepository();
+        userRepository = new InMemoryUserRepository();
+        filmId = filmRepository.create(Film.builder()
+                .name("test")
+                .description("test")
+                .releaseDate(LocalDate.parse("1960-03-21"))
+                .duration(100)
+                .mpa(new Mpa(1, "G"))
+                .build()).getId();
+        userId = createUser();
+
+        LikeWriteBehindProperties properties = new LikeWriteBehindProperties();
+        properties.setCapacity(CAPACITY);
+        properties.setBatchSize(CAPACITY);
+        properties.setFlushInterval(Duration.ofHours(1));
+        dataVersions = new DataVersions();
+        queue = new LikeWriteBehindQueue(filmRepository, userRepository, dataVersions, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    @DisplayName("Like and unlike of the same film by the same user are coalesced to the last one.")
+    void coalescesLikesOfSamePair() {
+        queue.addLike(filmId, userId);
+        queue.removeLike(filmId, userId);
+        queue.addLike(filmId, userId);
+
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(filmRepository.getLikes(filmId)).isEmpty();
+
+        queue.flush();
+
+        assertThat(queue.size()).isZero();
+        assertThat(filmRepository.getLikes(filmId)).containsExactly(userId);
+
+        queue.addLike(filmId, userId);
+        queue.removeLike(filmId, userId);
+        queue.flush();
+
+        assertThat(filmRepository.getLikes(filmId)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("The version of likes moves only when queued likes are written.")
+    void versionMovesAfterWrite() {
+        String version = dataVersions.getPopularFilmsTag();
+        queue.addLike(filmId, userId);
+
+        assertThat(dataVersions.getPopularFilmsTag()).isEqualTo(version);
+
+        queue.flush();
+
+        assertThat(filmRepository.getLikes(filmId)).containsExactly(userId);
+        assertThat(dataVersions.getPopularFilmsTag()).isNotEqualTo(version);
+    }
+
+    @Test
+    @DisplayName("A full queue is flushed on the caller thread before accepting more likes.")
+    void fullQueueIsFlushedByCaller() {
+        for (int i = 0; i < CAPACITY * 3; i++) {
+            queue.addLike(filmId, createUser());
+            assertThat(queue.size()).isLessThanOrEqualTo(CAPACITY);
+        }
+        queue.flush();
+
+        assertThat(filmRepository.getLikes(filmId)).hasSize(CAPACITY * 3);
+    }
+
+    @Test
+    @DisplayName("Likes of films deleted before a flush are skipped, the rest are written.")
+    void skipsLikesOfDeletedFilms() {
+        long otherUserId = createUser();
+        queue.addLike(filmId, userId);
+        queue.addLike(filmId + 1, otherUserId);
+        queue.flush();
+
+        assertThat(queue.size()).isZero();
+        assertThat(filmRepository.getLikes(filmId)).containsExactly(userId);
+    }
+
+    @Test
+    @DisplayName("close() drains pending likes and later likes are written through.")
+    void closeDrainsQueue() {
+        queue.addLike(filmId, userId);
+        queue.close();
+
+        assertThat(filmRepository.getLikes(filmId)).containsExactly(userId);
+
+        long otherUserId = createUser();
+        queue.addLike(filmId, otherUserId);
+
+        assertThat(queue.size()).isZero();
+        assertThat(filmRepository.getLikes(filmId)).containsExactlyInAnyOrder(userId, otherUserId);
+    }
+
+    private long createUser() {
+        return userRepository.create(User.builder()
+                .email("user@mail.ru")
+                .login("login")
+                .name("name")
+                .birthday(LocalDate.parse("2000-01-01"))
+                .build()).getId();
+    }
+}